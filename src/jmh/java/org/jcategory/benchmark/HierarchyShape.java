@@ -0,0 +1,77 @@
+package org.jcategory.benchmark;
+
+import static java.util.Arrays.asList;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jcategory.benchmark.ShapeCategorization.ShapeCategory;
+
+/**
+ * The shapes of the hierarchies used in the benchmarks.
+ * In all the shapes, the leaf category (the last added one) is the deepest category of the hierarchy.
+ *
+ */
+public enum HierarchyShape {
+	
+	/**
+	 * A single chain of categories.
+	 */
+	DEEP {
+		@Override
+		void populate(ShapeCategorization categorization, int size) {
+			ShapeCategory category = categorization.getRootCategory();
+			for(int i = 0; i < size; i++) {
+				category = categorization.addCategory(asList(category));
+			}
+		}
+	},
+	
+	/**
+	 * All the categories are children of the root.
+	 */
+	WIDE {
+		@Override
+		void populate(ShapeCategorization categorization, int size) {
+			for(int i = 0; i < size; i++) {
+				categorization.addCategory(asList(categorization.getRootCategory()));
+			}
+		}
+	},
+	
+	/**
+	 * A few layers of categories where each category inherits from two categories in the previous layer, closed by a leaf inheriting from the whole last layer.
+	 * The number of layers is kept small, since linearization functions traverse every path between two categories.
+	 */
+	DIAMOND {
+		private static final int LAYERS = 4;
+		
+		@Override
+		void populate(ShapeCategorization categorization, int size) {
+			int layerWidth = Math.max(2, size / LAYERS);
+			List<ShapeCategory> layer = asList(categorization.getRootCategory());
+			for(int i = 0; i < LAYERS; i++) {
+				List<ShapeCategory> nextLayer = new ArrayList<>();
+				for(int j = 0; j < layerWidth; j++) {
+					List<ShapeCategory> parents = layer.size() == 1 ? layer : asList(layer.get(j), layer.get((j + 1) % layerWidth));
+					nextLayer.add(categorization.addCategory(parents));
+				}
+				layer = nextLayer;
+			}
+			categorization.addCategory(layer);
+		}
+	};
+	
+	/**
+	 * @param size the approximate number of categories in the hierarchy.
+	 * @return a new categorization with this shape.
+	 */
+	public ShapeCategorization build(int size) {
+		ShapeCategorization categorization = new ShapeCategorization();
+		populate(categorization, size);
+		return categorization;
+	}
+	
+	abstract void populate(ShapeCategorization categorization, int size);
+	
+}
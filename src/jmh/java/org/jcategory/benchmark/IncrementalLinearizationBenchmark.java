@@ -0,0 +1,68 @@
+package org.jcategory.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.jcategory.JCategory;
+import org.jcategory.category.LinearizationMaintenance;
+import org.jcategory.category.name.NameCategory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Creation of many sibling categories below a category whose top-down linearization is read after each creation.
+ * When the linearization is invalidated, each read traverses the descendants again.
+ * With incremental maintenance, a new category is inserted in the cached linearization in logarithmic time, and a read only copies it to a new list.
+ *
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IncrementalLinearizationBenchmark {
+
+	@Param({"2500", "5000", "10000"})
+	private int siblings;
+
+	@Param({"INVALIDATE", "INCREMENTAL"})
+	private LinearizationMaintenance maintenance;
+
+	private List<String> newNames;
+
+	@Setup
+	public void setUp() {
+		newNames = new ArrayList<>();
+		for(int i = 0; i < siblings; i++) {
+			newNames.add("org.p" + i);
+		}
+		Collections.shuffle(newNames, new Random(0));
+	}
+
+	@Benchmark
+	public List<NameCategory> newSiblings() {
+		JCategory context = new JCategory();
+		context.getNamedCategorization().setLinearizationMaintenance(maintenance);
+		NameCategory root = context.forNameRoot();
+		List<NameCategory> topDownCategories = root.topDownCategories();
+		for(String name : newNames) {
+			root.getOrCreateCategory(name);
+			topDownCategories = root.topDownCategories();
+		}
+		return topDownCategories;
+	}
+
+}
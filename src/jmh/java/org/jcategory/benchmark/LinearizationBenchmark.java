@@ -0,0 +1,77 @@
+package org.jcategory.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.jcategory.benchmark.ShapeCategorization.ShapeCategory;
+import org.jcategory.traversal.RedundancyCheck;
+import org.jcategory.traversal.SearchStrategy;
+import org.jcategory.traversal.TraversalPolicy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Bottom-up and top-down linearizations of a hierarchy, computed from scratch and cached.
+ *
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LinearizationBenchmark {
+
+	@Param({"DEEP", "WIDE", "DIAMOND"})
+	private HierarchyShape shape;
+	
+	@Param({"16", "256"})
+	private int size;
+	
+	@Param({"PRE_ORDER", "BREADTH_FIRST"})
+	private SearchStrategy searchStrategy;
+	
+	private ShapeCategory root;
+	private ShapeCategory leaf;
+	private TraversalPolicy<ShapeCategory> bottomUpPolicy;
+	private TraversalPolicy<ShapeCategory> topDownPolicy;
+	
+	@Setup
+	public void setUp() {
+		ShapeCategorization categorization = shape.build(size);
+		root = categorization.getRootCategory();
+		leaf = categorization.getLeafCategory();
+		bottomUpPolicy = TraversalPolicy.bottomUpTraversalPolicy(searchStrategy, RedundancyCheck.KEEP_FIRST);
+		topDownPolicy = TraversalPolicy.topDownTraversalPolicy(searchStrategy, RedundancyCheck.KEEP_FIRST);
+	}
+	
+	@Benchmark
+	public List<ShapeCategory> bottomUp() {
+		return bottomUpPolicy.apply(leaf);
+	}
+	
+	@Benchmark
+	public List<ShapeCategory> topDown() {
+		return topDownPolicy.apply(root);
+	}
+	
+	@Benchmark
+	public List<ShapeCategory> cachedBottomUp() {
+		return leaf.bottomUpCategories();
+	}
+	
+	@Benchmark
+	public List<ShapeCategory> cachedTopDown() {
+		return root.topDownCategories();
+	}
+	
+}
@@ -0,0 +1,69 @@
+package org.jcategory.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.jcategory.JCategory;
+import org.jcategory.category.name.NameCategory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Look-up and creation of named categories.
+ *
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NameCategoryBenchmark {
+
+	@Param({"16", "256"})
+	private int siblings; //the number of children of each non-leaf category.
+	
+	private NameCategory root;
+	private String existingName;
+	private List<String> newNames;
+	
+	@Setup
+	public void setUp() {
+		newNames = new ArrayList<>();
+		for(int i = 0; i < siblings; i++) {
+			for(int j = 0; j < 4; j++) {
+				newNames.add("org.p" + i + ".q" + j + ".r");
+			}
+		}
+		existingName = newNames.get(newNames.size() / 2);
+		root = new JCategory().forNameRoot();
+		for(String name : newNames) {
+			root.getOrCreateCategory(name);
+		}
+	}
+	
+	@Benchmark
+	public NameCategory existingName() {
+		return root.getOrCreateCategory(existingName);
+	}
+	
+	@Benchmark
+	public NameCategory newNames() {
+		NameCategory newRoot = new JCategory().forNameRoot();
+		for(String name : newNames) {
+			newRoot.getOrCreateCategory(name);
+		}
+		return newRoot;
+	}
+	
+}
@@ -0,0 +1,72 @@
+package org.jcategory.benchmark;
+
+import static org.jcategory.category.Key.key;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.jcategory.benchmark.ShapeCategorization.ShapeCategory;
+import org.jcategory.category.Key;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Resolution of inherited properties from the deepest category of a hierarchy.
+ *
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PropertyResolutionBenchmark {
+
+	@Param({"DEEP", "WIDE", "DIAMOND"})
+	private HierarchyShape shape;
+	
+	@Param({"16", "256"})
+	private int size;
+	
+	@Param({"true", "false"})
+	private boolean cached; //if the resolution cache is enabled.
+	
+	private ShapeCategory leaf;
+	private Key key; //defined in the root.
+	private Key missingKey; //not defined in the hierarchy.
+	
+	@Setup
+	public void setUp() {
+		ShapeCategorization categorization = shape.build(size);
+		categorization.getResolutionCache().setEnabled(cached);
+		leaf = categorization.getLeafCategory();
+		key = key();
+		missingKey = key();
+		categorization.getRootCategory().setProperty(key, "value");
+	}
+	
+	@Benchmark
+	public Object inheritedProperty() {
+		return leaf.getProperty(key).get();
+	}
+	
+	@Benchmark
+	public boolean missingProperty() {
+		return leaf.containsProperty(missingKey);
+	}
+	
+	@Benchmark
+	public List<Object> bottomUpProperties() {
+		return leaf.bottomUpProperties(key);
+	}
+	
+}
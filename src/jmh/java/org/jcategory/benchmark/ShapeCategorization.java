@@ -0,0 +1,67 @@
+package org.jcategory.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jcategory.category.Categorization;
+import org.jcategory.category.Category;
+
+/**
+ * An ad hoc categorization whose categories keep track of their children, so they can also be linearized top-down.
+ *
+ */
+public class ShapeCategorization extends Categorization<ShapeCategorization.ShapeCategory> {
+
+	public static class ShapeCategory extends Category {
+		
+		private final List<ShapeCategory> children = new ArrayList<>();
+		
+		private ShapeCategory(ShapeCategorization categorization) {
+			super(categorization);
+		}
+		
+		private ShapeCategory(List<ShapeCategory> parents) {
+			super(parents);
+		}
+
+		@Override
+		public <U extends Category> List<U> getChildren() {
+			return (List) new ArrayList<>(children);
+		}
+	}
+	
+	private final ShapeCategory root;
+	private ShapeCategory leaf; //the last added category.
+	
+	public ShapeCategorization() {
+		root = new ShapeCategory(this);
+		leaf = root;
+	}
+	
+	/**
+	 * @param parents the parents of the new category.
+	 * @return a new category.
+	 */
+	public ShapeCategory addCategory(List<ShapeCategory> parents) {
+		ShapeCategory category = new ShapeCategory(parents);
+		for(ShapeCategory parent : parents) {
+			parent.children.add(category);
+		}
+		onCategoryAdded(category);
+		leaf = category;
+		return category;
+	}
+	
+	public ShapeCategory getRootCategory() {
+		return root;
+	}
+	
+	/**
+	 * 
+	 * @return the last added category.
+	 */
+	public ShapeCategory getLeafCategory() {
+		return leaf;
+	}
+	
+}
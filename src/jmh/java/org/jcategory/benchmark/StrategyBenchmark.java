@@ -0,0 +1,101 @@
+package org.jcategory.benchmark;
+
+import static org.jcategory.category.Key.key;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.jcategory.benchmark.ShapeCategorization.ShapeCategory;
+import org.jcategory.category.Category;
+import org.jcategory.strategy.Delegates;
+import org.jcategory.strategy.NoMyResponsibilityException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Creation and invocation of strategy objects whose responsibility chain starts with delegating implementors.
+ *
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StrategyBenchmark {
+
+	public interface Renderer {
+		String render(Object object);
+	}
+	
+	public static class HandlingRenderer implements Renderer {
+		@Override
+		public String render(Object object) {
+			return "rendered";
+		}
+	}
+	
+	public static class DelegatingRenderer implements Renderer {
+		@Override
+		public String render(Object object) {
+			throw new NoMyResponsibilityException();
+		}
+	}
+	
+	public static class AnnotatedRenderer implements Renderer {
+		@Delegates
+		@Override
+		public String render(Object object) {
+			throw NoMyResponsibilityException.delegate();
+		}
+	}
+	
+	@Param({"DEEP", "DIAMOND"})
+	private HierarchyShape shape;
+	
+	@Param({"0", "4"})
+	private int delegations; //the number of delegating implementors before the handling one.
+	
+	@Param({"false", "true"})
+	private boolean annotated; //if delegating implementors declare that they always delegate.
+	
+	private ShapeCategory leaf;
+	private Renderer renderer;
+	
+	@Setup
+	public void setUp() {
+		ShapeCategorization categorization = shape.build(64);
+		leaf = categorization.getLeafCategory();
+		List<Category> path = leaf.bottomUpCategories();
+		for(int i = 0; i < delegations; i++) {
+			path.get(i).setProperty(key(Renderer.class), annotated ? new AnnotatedRenderer() : new DelegatingRenderer());
+		}
+		path.get(delegations).setProperty(key(Renderer.class), new HandlingRenderer());
+		renderer = leaf.getStrategy(Renderer.class);
+	}
+	
+	@Benchmark
+	public Renderer getStrategy() {
+		return leaf.getStrategy(Renderer.class);
+	}
+	
+	@Benchmark
+	public String invoke() {
+		return renderer.render(leaf);
+	}
+	
+	@Benchmark
+	public String getStrategyAndInvoke() {
+		return leaf.getStrategy(Renderer.class).render(leaf);
+	}
+	
+}
@@ -0,0 +1,81 @@
+package org.jcategory.benchmark;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.jcategory.JCategory;
+import org.jcategory.category.type.TypeCategory;
+import org.jcategory.category.type.TypeCategoryIndexing;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Look-up and creation of type categories.
+ *
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TypeCategorizationBenchmark {
+
+	private static final Class<?>[] CLASSES = {ArrayList.class, LinkedList.class, ArrayDeque.class, HashSet.class, TreeSet.class, 
+		HashMap.class, LinkedHashMap.class, TreeMap.class, ConcurrentHashMap.class, ConcurrentSkipListSet.class, CopyOnWriteArrayList.class};
+	
+	@Param({"HASH_MAP", "CLASS_VALUE"})
+	private TypeCategoryIndexing indexing;
+	
+	private JCategory context;
+	
+	@Setup
+	public void setUp() {
+		context = newContext();
+		for(Class<?> clazz : CLASSES) {
+			context.forClass(clazz);
+		}
+	}
+	
+	private JCategory newContext() {
+		JCategory newContext = new JCategory();
+		newContext.getTypeCategorization().setIndexing(indexing);
+		return newContext;
+	}
+	
+	@Benchmark
+	public TypeCategory<?> existingType() {
+		return context.forClass(ArrayList.class);
+	}
+	
+	@Benchmark
+	public List<TypeCategory<?>> newTypes() {
+		JCategory newContext = newContext();
+		List<TypeCategory<?>> categories = new ArrayList<>();
+		for(Class<?> clazz : CLASSES) {
+			categories.add(newContext.forClass(clazz));
+		}
+		return categories;
+	}
+	
+}
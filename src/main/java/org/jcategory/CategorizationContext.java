@@ -2,9 +2,11 @@ package org.jcategory;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.jcategory.category.Categorization;
 import org.jcategory.category.Category;
+import org.jcategory.category.FrozenCategorization;
 
 /**
  * Defines a register of categorizations.
@@ -14,9 +16,11 @@ import org.jcategory.category.Category;
 public class CategorizationContext {
 
 	private final Map<Object, Categorization<?>> categorizationIndex; //categorizations are backed up in this map.
+	private final Map<Object, FrozenCategorization<?>> snapshotIndex; //the published snapshots of the categorizations, read without locking.
 	
 	public CategorizationContext () {
 		categorizationIndex = new HashMap<>();
+		snapshotIndex = new ConcurrentHashMap<>();
 	}
 	
 	/**
@@ -36,4 +40,26 @@ public class CategorizationContext {
 		categorizationIndex.put(key, categorization);
 	}
 
+	/**
+	 * Takes a snapshot of a registered categorization and publishes it, atomically replacing the previous snapshot of the categorization.
+	 * @param key the key under which the categorization is registered.
+	 * @return the new snapshot.
+	 */
+	public <T extends Category> FrozenCategorization<T> freeze(Object key) {
+		Categorization<T> categorization = getCategorization(key);
+		if(categorization == null)
+			throw new IllegalArgumentException("No categorization registered under " + key + ".");
+		FrozenCategorization<T> snapshot = categorization.freeze();
+		snapshotIndex.put(key, snapshot);
+		return snapshot;
+	}
+	
+	/**
+	 * @param key the key under which a categorization is registered.
+	 * @return the last published snapshot of the categorization. Null if the categorization has not been frozen.
+	 */
+	public <T extends Category> FrozenCategorization<T> getSnapshot(Object key) {
+		return (FrozenCategorization<T>) snapshotIndex.get(key);
+	}
+
 }
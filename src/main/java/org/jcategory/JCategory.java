@@ -122,7 +122,7 @@ public class JCategory extends CategorizationContext {
 	 * @param name the full id (e.g., "a.b.c") of a category.
 	 * @return a category corresponding to the given id.
 	 */
-	public NameCategory forName(String name) {
+	public NameCategory forName(CharSequence name) {
 		return forNameRoot().getOrCreateCategory(name);
 	}
 	
@@ -0,0 +1,97 @@
+package org.jcategory.category;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * An immutable set of category ids, represented as a sparse bitset.
+ * Only the 64-bit words containing at least one id are stored, sorted by their index.
+ * Since ancestors get smaller ids than their descendants, the ancestors of a category are usually packed in a few words.
+ */
+class AncestorSet {
+
+	static final AncestorSet EMPTY = new AncestorSet(new int[0], new long[0]);
+	
+	private final int[] wordIndexes; //the (sorted) indexes of the non-empty words.
+	private final long[] words; //the non-empty words.
+	
+	private AncestorSet(int[] wordIndexes, long[] words) {
+		this.wordIndexes = wordIndexes;
+		this.words = words;
+	}
+	
+	/**
+	 * @param sets sets of ids.
+	 * @param ids additional ids.
+	 * @return the union of the given sets and ids.
+	 */
+	static AncestorSet union(List<AncestorSet> sets, int[] ids) {
+		Map<Integer, Long> wordMap = new TreeMap<>();
+		for(AncestorSet set : sets) {
+			for(int i = 0; i < set.wordIndexes.length; i++) {
+				wordMap.merge(set.wordIndexes[i], set.words[i], (word1, word2) -> word1 | word2);
+			}
+		}
+		for(int id : ids) {
+			wordMap.merge(id >>> 6, 1L << id, (word1, word2) -> word1 | word2);
+		}
+		int[] wordIndexes = new int[wordMap.size()];
+		long[] words = new long[wordMap.size()];
+		int i = 0;
+		for(Map.Entry<Integer, Long> entry : wordMap.entrySet()) {
+			wordIndexes[i] = entry.getKey();
+			words[i++] = entry.getValue();
+		}
+		return new AncestorSet(wordIndexes, words);
+	}
+	
+	/**
+	 * @param id a category id.
+	 * @return true if the given id belongs to this set. false otherwise.
+	 */
+	boolean contains(int id) {
+		int i = Arrays.binarySearch(wordIndexes, id >>> 6);
+		return i >= 0 && (words[i] & (1L << id)) != 0;
+	}
+	
+	/**
+	 * @param id a category id.
+	 * @return a set with the ids in this set and the given id.
+	 */
+	AncestorSet with(int id) {
+		if(contains(id))
+			return this;
+		return union(Arrays.asList(this), new int[]{id});
+	}
+	
+	/**
+	 * @param other a set of ids.
+	 * @return a set with the ids belonging to both this and the given set.
+	 */
+	AncestorSet intersect(AncestorSet other) {
+		int[] intersectionIndexes = new int[Math.min(wordIndexes.length, other.wordIndexes.length)];
+		long[] intersectionWords = new long[intersectionIndexes.length];
+		int size = 0;
+		int i = 0;
+		int j = 0;
+		while(i < wordIndexes.length && j < other.wordIndexes.length) {
+			if(wordIndexes[i] < other.wordIndexes[j]) {
+				i++;
+			} else if(wordIndexes[i] > other.wordIndexes[j]) {
+				j++;
+			} else {
+				long word = words[i] & other.words[j];
+				if(word != 0) {
+					intersectionIndexes[size] = wordIndexes[i];
+					intersectionWords[size++] = word;
+				}
+				i++;
+				j++;
+			}
+		}
+		return new AncestorSet(Arrays.copyOf(intersectionIndexes, size), Arrays.copyOf(intersectionWords, size));
+	}
+	
+}
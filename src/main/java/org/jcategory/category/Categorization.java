@@ -4,11 +4,21 @@ import static org.jcategory.traversal.TraversalPolicy.bottomUpTraversalPolicy;
 import static org.jcategory.traversal.TraversalPolicy.topDownTraversalPolicy;
 
 import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 
 import org.jcategory.traversal.RedundancyCheck;
 import org.jcategory.traversal.SearchStrategy;
+import org.jcategory.traversal.TraversalPolicy;
+import org.jcategory.traversal.TraversalPolicy.LeafInsertion;
 
 /**
  * A set of categories with a hierarchical organization.
@@ -26,6 +36,12 @@ public class Categorization<T extends Category> implements Serializable {
 	private final Function<T, List<T>> bottomUpLinearizationFunction; //bottom-up type linearization function.
 	private final Function<T, List<T>> topDownLinearizationFunction; //top-down type linearization function.
 	private T root;
+	private final PropertyResolutionCache resolutionCache; //memoizes the effective value of properties in the categories of this categorization.
+	private final KeyRegistry keyRegistry; //assigns ids to the keys of the properties stored in the categories of this categorization.
+	private final transient PropertyVersioning propertyVersioning; //versions the properties written in the categories of this categorization.
+	private final AtomicLong structureVersion; //incremented each time a category is added to this categorization.
+	private final AtomicInteger categoryIds; //the next dense id to assign to a category of this categorization.
+	private volatile LinearizationMaintenance linearizationMaintenance; //how cached top-down linearizations are updated when a category is added.
 	
 
 	/**
@@ -52,6 +68,12 @@ public class Categorization<T extends Category> implements Serializable {
 			Function<T, List<T>> topDownLinearizationFunction) {
 		this.bottomUpLinearizationFunction = bottomUpLinearizationFunction;
 		this.topDownLinearizationFunction = topDownLinearizationFunction;
+		resolutionCache = new PropertyResolutionCache();
+		keyRegistry = new KeyRegistry();
+		propertyVersioning = new PropertyVersioning(resolutionCache);
+		structureVersion = new AtomicLong();
+		categoryIds = new AtomicInteger();
+		linearizationMaintenance = LinearizationMaintenance.INVALIDATE;
 	}
 	
 	/**
@@ -78,6 +100,157 @@ public class Categorization<T extends Category> implements Serializable {
 		return root;
 	}
 
+	/**
+	 * 
+	 * @return the cache memoizing the effective value of properties in the categories of this categorization.
+	 */
+	public PropertyResolutionCache getResolutionCache() {
+		return resolutionCache;
+	}
+	
+	/**
+	 * 
+	 * @return the registry of the keys of the properties stored in the categories of this categorization.
+	 */
+	public KeyRegistry getKeyRegistry() {
+		return keyRegistry;
+	}
+
+	/**
+	 * Applies a group of property modifications as a single update.
+	 * Readers resolving properties concurrently see either none or all of the modifications, and are never blocked by the update.
+	 * Updates are serialized, and may be nested. If the outermost update does not complete normally, its modifications are discarded.
+	 * @param update the property modifications.
+	 */
+	public void atomically(Runnable update) {
+		propertyVersioning.atomically(update);
+	}
+	
+	/**
+	 * 
+	 * @return the version of the properties of this categorization. It changes each time an update of the properties of its categories is committed.
+	 */
+	public long getPropertyVersion() {
+		return propertyVersioning.getCommittedVersion();
+	}
+	
+	/**
+	 * 
+	 * @return the number of categories keeping older versions of their properties, visible only to readers that were resolving properties when they were modified.
+	 * Such versions are released once those readers are done.
+	 */
+	public int getRetainingCategoryCount() {
+		return propertyVersioning.getRetainingCategoryCount();
+	}
+	
+	/**
+	 * 
+	 * @return the versioning of the properties of the categories of this categorization.
+	 */
+	PropertyVersioning getPropertyVersioning() {
+		return propertyVersioning;
+	}
+	
+	/**
+	 * 
+	 * @return the structural version of this categorization. It changes each time categories are added to or removed from this categorization.
+	 */
+	public long getStructureVersion() {
+		return structureVersion.get();
+	}
+	
+	/**
+	 * 
+	 * @return a new category id, unique in this categorization.
+	 */
+	int nextCategoryId() {
+		return categoryIds.getAndIncrement();
+	}
+	
+	/**
+	 * 
+	 * @return how cached top-down linearizations are maintained when a category is added to this categorization.
+	 */
+	public LinearizationMaintenance getLinearizationMaintenance() {
+		return linearizationMaintenance;
+	}
+
+	/**
+	 * @param linearizationMaintenance how cached top-down linearizations should be maintained when a category is added to this categorization.
+	 */
+	public void setLinearizationMaintenance(LinearizationMaintenance linearizationMaintenance) {
+		this.linearizationMaintenance = linearizationMaintenance;
+	}
+	
+	/**
+	 * Notifies this categorization that a (non-root) category has been added to it.
+	 * Cached top-down linearizations of all the ancestors of the new category are either invalidated or updated, according to the linearization maintenance mode.
+	 * Subclasses creating categories concurrently should call this method from one thread at a time, once the new category is linked to its parents.
+	 * @param category the new category.
+	 */
+	protected void onCategoryAdded(T category) {
+		category.getId(); //assigns the id of the new category and computes its ancestor set
+		long version = structureVersion.incrementAndGet();
+		TraversalPolicy<Category> insertionPolicy = getInsertionPolicy();
+		LeafInsertion<Category> insertion = insertionPolicy != null ? insertionPolicy.newLeafInsertion(category) : null;
+		Set<Category> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+		Deque<Category> pending = new ArrayDeque<>(category.<Category>getParents());
+		while(!pending.isEmpty()) {
+			Category ancestor = pending.pop();
+			if(visited.add(ancestor)) {
+				ancestor.onDescendantAdded(version, insertion);
+				pending.addAll(ancestor.<Category>getParents());
+			}
+		}
+	}
+
+	/**
+	 * 
+	 * @return the top-down policy of this categorization if cached top-down linearizations should be maintained incrementally. null if they should be invalidated.
+	 */
+	TraversalPolicy<Category> getInsertionPolicy() {
+		if(linearizationMaintenance.equals(LinearizationMaintenance.INCREMENTAL) && topDownLinearizationFunction instanceof TraversalPolicy
+				&& ((TraversalPolicy) topDownLinearizationFunction).supportsIncrementalLinearization())
+			return (TraversalPolicy) topDownLinearizationFunction;
+		return null;
+	}
+	
+	/**
+	 * Notifies this categorization that some categories have been removed from it (e.g., because their classes were unloaded).
+	 * Cached top-down linearizations of the former parents of the removed categories, and of all their ancestors, are discarded.
+	 * Subclasses should call this method from one thread at a time, once the removed categories are unlinked from their parents.
+	 * @param formerParents the remaining categories that were parents of the removed categories.
+	 */
+	protected void onCategoriesRemoved(Collection<? extends T> formerParents) {
+		long version = structureVersion.incrementAndGet();
+		Set<Category> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+		Deque<Category> pending = new ArrayDeque<>(formerParents);
+		while(!pending.isEmpty()) {
+			Category ancestor = pending.pop();
+			if(visited.add(ancestor)) {
+				ancestor.onDescendantsRemoved(version);
+				pending.addAll(ancestor.<Category>getParents());
+			}
+		}
+	}
+	
+	/**
+	 * Cached top-down linearizations reference all the known descendants of a category.
+	 * Categorizations holding some of their categories weakly should not retain such linearizations strongly.
+	 * @return true if cached top-down linearizations are strongly referenced. false if they are only weakly referenced, so they may be discarded by the garbage collector.
+	 */
+	protected boolean retainsTopDownLinearizations() {
+		return true;
+	}
+	
+	/**
+	 * Takes an immutable snapshot of this categorization, optimized for reading.
+	 * @return a snapshot of the categories of this categorization and their properties.
+	 */
+	public FrozenCategorization<T> freeze() {
+		return new FrozenCategorization<>(this);
+	}
+	
 	void setRoot(T root) {
 		if(this.root != null)
 			throw new RuntimeException("This categorization is already associated with a root category");
@@ -1,5 +1,7 @@
 package org.jcategory.category;
 
+import java.util.List;
+
 /**
  * A listener notified when a category has been added to a categorization.
  * @author sergioc
@@ -14,4 +16,15 @@ public interface CategorizationListener<T extends Category> {
 	 */
 	public void onCategorization(T category);
 	
+	/**
+	 * Callback method invoked with a batch of categories added to a categorization.
+	 * By default, {@link #onCategorization(Category)} is invoked for each category.
+	 * @param categories the categories added to a categorization, in the order they were added.
+	 */
+	public default void onCategorizations(List<T> categories) {
+		for(T category : categories) {
+			onCategorization(category);
+		}
+	}
+	
 }
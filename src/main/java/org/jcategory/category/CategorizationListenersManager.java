@@ -1,24 +1,47 @@
 package org.jcategory.category;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * A utility class for managing category creation listeners.
+ * <p>
+ * By default, listeners are notified synchronously by the thread that added the categories.
+ * Alternatively, notifications can be delivered asynchronously on an executor. In such case, each listener has a queue of pending categories, 
+ * which are delivered in batches (see {@link CategorizationListener#onCategorizations(List)}) in the order they were added to the categorization.
+ * A thread adding categories waits while the queue of a listener exceeds its capacity, unless such thread is delivering notifications itself
+ * (e.g., a listener adding categories), so listeners cannot deadlock.
+ * Deliveries are scheduled after the creation lock is released. If the executor rejects a delivery, the scheduling thread delivers the pending categories itself.
+ * </p>
  * @author sergioc
  *
  */
 public class CategorizationListenersManager {
 
-	private final List<CategorizationListener<?>> categorizationListeners;
+	private static final int MAX_BATCH_SIZE = 256; //the maximum number of categories delivered to a listener at once.
+	private static final ThreadLocal<Boolean> DELIVERING = new ThreadLocal<>(); //true while the current thread delivers asynchronous notifications.
+	private static final Runnable NO_NOTIFICATION = () -> {};
+	
+	private final List<CategorizationListener<?>> categorizationListeners; //copy-on-write, so listeners can be notified while others are added or removed.
+	private final Map<CategorizationListener<?>, ListenerQueue> listenerQueues; //the queues of pending asynchronous notifications. Kept when the delivery changes, so pending notifications are not overtaken.
+	private volatile Executor executor; //delivers the notifications. Null if notifications are synchronous.
+	private volatile int queueCapacity; //the maximum number of pending categories per listener.
 	
 	public CategorizationListenersManager() {
 		this((List)Collections.emptyList());
 	}
 	
 	public CategorizationListenersManager(List<CategorizationListener<?>> categorizationListeners) {
-		this.categorizationListeners = new ArrayList<>(categorizationListeners);
+		this.categorizationListeners = new CopyOnWriteArrayList<>(categorizationListeners);
+		listenerQueues = new ConcurrentHashMap<>();
 	}
 	
 	public void add(CategorizationListener<?> creationListener) {
@@ -27,12 +50,238 @@ public class CategorizationListenersManager {
 	
 	public void remove(CategorizationListener<?> creationListener) {
 		categorizationListeners.remove(creationListener);
+		listenerQueues.remove(creationListener);
+	}
+	
+	/**
+	 * Notifications are delivered asynchronously from now on.
+	 * Pending asynchronous notifications are delivered before the new ones, on the new executor.
+	 * @param executor the executor delivering the notifications.
+	 * @param queueCapacity the maximum number of pending categories per listener.
+	 */
+	public void setAsynchronousDelivery(Executor executor, int queueCapacity) {
+		if(queueCapacity < 1)
+			throw new IllegalArgumentException("Invalid queue capacity: " + queueCapacity);
+		this.queueCapacity = queueCapacity;
+		this.executor = executor;
+	}
+	
+	/**
+	 * Notifications are delivered synchronously from now on. 
+	 * Pending asynchronous notifications are still delivered. Until the queue of a listener is drained, new notifications for such listener are queued behind them.
+	 */
+	public void setSynchronousDelivery() {
+		executor = null;
+	}
+	
+	/**
+	 * 
+	 * @return true if notifications are delivered asynchronously. false otherwise.
+	 */
+	public boolean isAsynchronousDelivery() {
+		return executor != null;
+	}
+	
+	/**
+	 * 
+	 * @return the number of categories pending to be delivered, summed over all the listeners.
+	 */
+	public int getQueueDepth() {
+		int depth = 0;
+		for(ListenerQueue listenerQueue : listenerQueues.values()) {
+			depth += listenerQueue.size();
+		}
+		return depth;
+	}
+	
+	/**
+	 * @param listener a listener.
+	 * @return the number of categories pending to be delivered to the given listener.
+	 */
+	public int getQueueDepth(CategorizationListener<?> listener) {
+		ListenerQueue listenerQueue = listenerQueues.get(listener);
+		return listenerQueue != null ? listenerQueue.size() : 0;
 	}
 	
 	public void notifyCategorizationListeners(Category category) {
+		notifyCategorizationListeners(Collections.singletonList(category));
+	}
+	
+	/**
+	 * @param categories categories added to a categorization, in the order they were added.
+	 */
+	public void notifyCategorizationListeners(List<? extends Category> categories) {
+		handOver(categories).run();
+	}
+	
+	/**
+	 * Hands over new categories to the listeners.
+	 * A categorization should call this method while holding the lock serializing the creation of categories, so batches are queued in the order they were created.
+	 * The returned notification should be run once the lock is released, since it may call listeners, schedule deliveries or wait.
+	 * @param categories categories added to a categorization, in the order they were added.
+	 * @return the rest of the notification, to be run by the current thread: scheduling the deliveries of the queues, notifying synchronous listeners, and waiting while queues exceed their capacity.
+	 */
+	public Runnable handOver(List<? extends Category> categories) {
+		if(categories.isEmpty())
+			return NO_NOTIFICATION;
+		Executor currentExecutor = executor;
+		List<CategorizationListener<?>> synchronousListeners = new ArrayList<>();
+		List<ListenerQueue> usedQueues = new ArrayList<>();
 		for(CategorizationListener<?> listener : categorizationListeners) {
-			((CategorizationListener)listener).onCategorization(category);
+			ListenerQueue listenerQueue = currentExecutor != null ? listenerQueues.computeIfAbsent(listener, ListenerQueue::new) : listenerQueues.get(listener);
+			if(listenerQueue != null && listenerQueue.enqueue(categories, currentExecutor))
+				usedQueues.add(listenerQueue);
+			else
+				synchronousListeners.add(listener);
 		}
+		if(synchronousListeners.isEmpty() && usedQueues.isEmpty())
+			return NO_NOTIFICATION;
+		int capacity = queueCapacity;
+		return () -> {
+			for(ListenerQueue listenerQueue : usedQueues) {
+				listenerQueue.schedule();
+			}
+			for(CategorizationListener<?> listener : synchronousListeners) {
+				((CategorizationListener)listener).onCategorizations(categories);
+			}
+			if(!Boolean.TRUE.equals(DELIVERING.get())) { //delivery threads do not wait, otherwise a listener adding categories could wait for itself
+				for(ListenerQueue listenerQueue : usedQueues) {
+					listenerQueue.awaitCapacity(capacity);
+				}
+			}
+		};
 	}
 
+	/**
+	 * The pending notifications of a listener. At most one batch is delivered at a time, so categories are delivered in order.
+	 */
+	private static class ListenerQueue implements Runnable {
+		
+		private final CategorizationListener listener;
+		private final Deque<Category> pending; //guarded by this queue.
+		private Executor executor; //the executor of the last asynchronous notification. Guarded by this queue.
+		private boolean scheduled; //true while a delivery is scheduled or running. Guarded by this queue.
+		
+		private ListenerQueue(CategorizationListener<?> listener) {
+			this.listener = listener;
+			pending = new ArrayDeque<>();
+		}
+		
+		private synchronized int size() {
+			return pending.size();
+		}
+		
+		/**
+		 * Queues new categories. Does not schedule their delivery, so it can be called while holding the creation lock.
+		 * @param categories new categories.
+		 * @param currentExecutor the executor delivering new notifications. Null if new notifications are synchronous.
+		 * @return true if the categories were queued. false if they should be delivered synchronously, since there are no pending notifications.
+		 */
+		private synchronized boolean enqueue(List<? extends Category> categories, Executor currentExecutor) {
+			if(currentExecutor == null && !scheduled && pending.isEmpty())
+				return false;
+			if(currentExecutor != null)
+				executor = currentExecutor;
+			pending.addAll(categories);
+			return true;
+		}
+		
+		/**
+		 * Waits while this queue exceeds the given capacity and a delivery is scheduled.
+		 * @param capacity the maximum number of pending categories.
+		 */
+		private synchronized void awaitCapacity(int capacity) {
+			while(pending.size() > capacity && scheduled) {
+				try {
+					wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new RuntimeException(e);
+				}
+			}
+		}
+		
+		/**
+		 * Schedules the delivery of the pending categories, unless a delivery is already scheduled.
+		 * Must not be called while holding the creation lock, since the executor may run the delivery in the current thread.
+		 */
+		private void schedule() {
+			synchronized(this) {
+				if(pending.isEmpty() || scheduled)
+					return;
+				scheduled = true;
+			}
+			dispatch();
+		}
+		
+		/**
+		 * Hands the delivery over to the executor. Must be called by the thread that set the scheduled flag.
+		 * If the executor rejects the delivery (e.g., it was shut down), the current thread delivers the pending categories instead.
+		 */
+		private void dispatch() {
+			while(true) {
+				Executor deliveryExecutor;
+				synchronized(this) {
+					deliveryExecutor = executor;
+				}
+				try {
+					deliveryExecutor.execute(this);
+					return;
+				} catch(RejectedExecutionException e) {
+					if(!deliverBatch())
+						return;
+				}
+			}
+		}
+		
+		@Override
+		public void run() {
+			boolean pendingBatches = false;
+			try {
+				pendingBatches = deliverBatch();
+			} finally {
+				if(pendingBatches)
+					dispatch();
+				else
+					schedule(); //a failing listener may have left pending categories
+			}
+		}
+		
+		/**
+		 * Delivers the next batch of pending categories. Must be called by the thread that set the scheduled flag.
+		 * @return true if categories are still pending, in which case the scheduled flag is kept for delivering them. false otherwise.
+		 */
+		private boolean deliverBatch() {
+			List<Category> batch = new ArrayList<>();
+			synchronized(this) {
+				while(batch.size() < MAX_BATCH_SIZE && !pending.isEmpty()) {
+					batch.add(pending.poll());
+				}
+				notifyAll();
+			}
+			Boolean delivering = DELIVERING.get();
+			DELIVERING.set(true);
+			try {
+				if(!batch.isEmpty())
+					listener.onCategorizations(batch);
+			} catch(RuntimeException | Error e) {
+				unschedule();
+				throw e;
+			} finally {
+				DELIVERING.set(delivering);
+			}
+			synchronized(this) {
+				if(!pending.isEmpty())
+					return true; //categories were added during the delivery
+				unschedule();
+				return false;
+			}
+		}
+		
+		private synchronized void unschedule() {
+			scheduled = false;
+			notifyAll(); //producers do not wait for a delivery that is not scheduled
+		}
+	}
+	
 }
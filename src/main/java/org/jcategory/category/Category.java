@@ -4,17 +4,25 @@ import static com.google.common.collect.Lists.newArrayList;
 import static org.jcategory.category.Key.key;
 
 import java.io.Serializable;
+import java.lang.ref.Reference;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Proxy;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import java.util.function.Function;
 
 import org.jcategory.category.CategoryProperty.PropertyIterable;
 import org.jcategory.strategy.ChainOfResponsibility;
 import org.jcategory.strategy.StrategyInvocationHandler;
+import org.jcategory.traversal.IncrementalLinearization;
+import org.jcategory.traversal.TraversalPolicy;
+import org.jcategory.traversal.TraversalPolicy.LeafInsertion;
 
 /**
  * A hierarchical category associated with named properties.
@@ -25,12 +33,20 @@ public class Category implements Serializable {
 
 	private static final long serialVersionUID = 1L;
 	
-	private final Map<Object, Object> properties; //properties associated with this category are backed up in this map.
+	private static final AtomicReferenceFieldUpdater<Category, Map> RESOLVED_PROPERTIES_UPDATER = 
+			AtomicReferenceFieldUpdater.newUpdater(Category.class, Map.class, "resolvedProperties");
+	
+	private volatile PropertyTable properties; //the newest version of the properties associated with this category, indexed by the id of their keys in the key registry of the categorization.
 	private Categorization categorization; //the categorization where this category exists.
 	private final List<? extends Category> parents; //default placeholder for the parents of this category. Subclasses may choose to store parents in a different structure.
 	private final List<? extends Category> children; //default placeholder for the children of this category. Subclasses may choose to store children in a different structure.
-	private List<? extends Category> bottomUpLinearization; //lazily initialized bottom-up linearization
+	private transient volatile Linearization bottomUpLinearization; //lazily initialized bottom-up linearization
+	private transient volatile Object topDownLinearization; //lazily initialized top-down linearization (or a weak reference to it, see Categorization#retainsTopDownLinearizations()), valid while the known descendants of this category do not change.
+	private transient volatile long descendantsVersion; //the structural version of the categorization when a descendant was last added to this category.
 	private final int level; //the (max) level of this category in the category hierarchy.
+	private transient volatile Map<Key, PropertyResolution> resolvedProperties; //lazily initialized entries of the resolution cache of the categorization.
+	private transient volatile int id = -1; //lazily assigned dense id of this category in its categorization. Ancestors get smaller ids than their descendants.
+	private transient volatile AncestorSet ancestorSet; //lazily computed ids of the ancestors of this category.
 	
 	/**
 	 * @param categorization the categorization where this category exists.
@@ -46,7 +62,7 @@ public class Category implements Serializable {
 	public Category(List<? extends Category> parents) {
 		this.parents = parents;
 		children = new ArrayList<>();
-		properties = new HashMap<>();
+		properties = PropertyTable.EMPTY;
 		level = findLevel(parents);
 	}
 	
@@ -110,8 +126,20 @@ public class Category implements Serializable {
 	 * @param key the property identifier.
 	 * @return an optional with the property value in the current category map (if any).
 	 */
-	<T> Optional<T> getFromLocalMap(Object key) {
-		return Optional.ofNullable((T) properties.get(key));
+	<T> Optional<T> getFromLocalMap(Key key) {
+		return Optional.ofNullable((T) getLocalValue(key));
+	}
+	
+	/**
+	 * @param key the property identifier.
+	 * @return the property value in the current category map, or null if the property is not locally present.
+	 */
+	Object getLocalValue(Key key) {
+		Object[] values = getVisibleValues();
+		if(values.length == 0)
+			return null;
+		int id = getCategorization().getKeyRegistry().findId(key);
+		return id != -1 && id < values.length ? values[id] : null;
 	}
 	
 	/**
@@ -119,6 +147,8 @@ public class Category implements Serializable {
 	 * @return true if the property exists in the current category. false otherwise. It does not query ancestor categories if the property is not locally present.
 	 */
 	public boolean containsLocalProperty(Key key) {
+		if(key.isCacheable())
+			return getLocalValue(key) != null;
 		return !getLocalProperty(key).isEmpty();
 	}
 	
@@ -126,14 +156,16 @@ public class Category implements Serializable {
 	 * @param key the property identifier.
 	 */
 	public void removeLocalProperty(Key key) {
-		key.removeFromCategory(this);
+		getCategorization().atomically(() -> key.removeFromCategory(this));
 	}
 	
 	/**
 	 * @param key the property identifier.
 	 */
-	void removeFromLocalMap(Object key) {
-		properties.remove(key);
+	void removeFromLocalMap(Key key) {
+		int id = getCategorization().getKeyRegistry().findId(key);
+		if(id != -1)
+			getCategorization().atomically(() -> writeLocalValue(key, id, null));
 	}
 	
 	/**
@@ -142,7 +174,7 @@ public class Category implements Serializable {
 	 * @param value the value of the property.
 	 */
 	public void setProperty(Key key, Object value) {
-		key.setForCategory(this, value);
+		getCategorization().atomically(() -> key.setForCategory(this, value));
 	}
 	
 	/**
@@ -150,8 +182,103 @@ public class Category implements Serializable {
 	 * @param key the property identifier.
 	 * @param value the value of the property.
 	 */
-	void putAtLocalMap(Object key, Object value) {
-		properties.put(key, value);
+	void putAtLocalMap(Key key, Object value) {
+		int id = getCategorization().getKeyRegistry().register(key);
+		getCategorization().atomically(() -> writeLocalValue(key, id, value));
+	}
+	
+	/**
+	 * Writes a property in the pending version of the properties of this category. Must be called while holding the write lock of the categorization.
+	 * @param key the property identifier.
+	 * @param id the id of the key.
+	 * @param value the value of the property. Null if the property should be removed.
+	 */
+	private void writeLocalValue(Key key, int id, Object value) {
+		PropertyVersioning versioning = getCategorization().getPropertyVersioning();
+		long version = versioning.getPendingVersion();
+		PropertyTable table = properties;
+		Object previousValue = id < table.values.length ? table.values[id] : null;
+		if(previousValue == value)
+			return;
+		if(table.version == version && id < table.values.length) {
+			table.values[id] = value; //the pending version is not visible to readers yet
+		} else {
+			Object[] values = Arrays.copyOf(table.values, Math.max(table.values.length, id + 1));
+			values[id] = value;
+			properties = new PropertyTable(values, version, table.version == version ? table.previous : table);
+		}
+		versioning.recordWrite(this, key);
+	}
+	
+	/**
+	 * 
+	 * @return the properties of this category visible to the current thread.
+	 */
+	private Object[] getVisibleValues() {
+		while(true) {
+			PropertyTable table = properties;
+			if(table.previous == null) //committed and visible to all readers
+				return table.values;
+			PropertyTable visibleTable = table.visibleAt(getCategorization().getPropertyVersioning().getReadVersion());
+			if(visibleTable != null)
+				return visibleTable.values;
+			//an unpinned reader read the version before a newer one was committed. The newer one is read instead
+		}
+	}
+	
+	/**
+	 * Unlinks the versions of the properties of this category that are not visible to any reader.
+	 * @param oldestReadVersion the oldest version of the categorization seen by a reader.
+	 * @return true if no older version is left. false if older versions are still visible to some reader.
+	 */
+	boolean prunePropertyTables(long oldestReadVersion) {
+		return properties.prune(oldestReadVersion);
+	}
+	
+	/**
+	 * Discards the properties written with a version that was not committed.
+	 * @param version the discarded version.
+	 */
+	void discardPropertyTable(long version) {
+		PropertyTable table = properties;
+		if(table.version == version)
+			properties = table.previous;
+	}
+	
+	/**
+	 * 
+	 * @return a copy of the properties of this category visible to the current thread, indexed by the id of their keys in the key registry of the categorization.
+	 */
+	Object[] getLocalValues() {
+		Object[] values = getVisibleValues();
+		return values.length == 0 ? values : values.clone();
+	}
+	
+	/**
+	 * 
+	 * @return the memoized effective values of properties in this category.
+	 * @see PropertyResolutionCache
+	 */
+	Map<Key, PropertyResolution> getResolvedProperties() {
+		Map<Key, PropertyResolution> resolved = resolvedProperties;
+		if(resolved == null) {
+			RESOLVED_PROPERTIES_UPDATER.compareAndSet(this, null, new ConcurrentHashMap<>());
+			resolved = resolvedProperties;
+		}
+		return resolved;
+	}
+	
+	/**
+	 * Discards the memoized effective value of a property in this category.
+	 * @param key the property identifier.
+	 */
+	void removeResolvedProperty(Key key) {
+		Map<Key, PropertyResolution> resolved = resolvedProperties;
+		if(resolved != null) {
+			PropertyResolution resolution = resolved.remove(key);
+			if(resolution != null)
+				resolution.invalidate();
+		}
 	}
 	
 	
@@ -185,13 +312,96 @@ public class Category implements Serializable {
 	 * @param key the property identifier.
 	 * @param strategyInterfaces the interfaces implemented by the strategy object.
 	 * @param exceptionClass instances of this exception class denote that a strategy delegates to the next one in the responsibility chain.
-	 * @return a strategy object implementing the given interfaces.
+	 * @return a strategy object implementing the given interfaces. If the key is cacheable, the same object is answered until the property is modified in this category or in any of its ancestors.
 	 */
 	public <T> T getStrategy(Key key, Class<?>[] strategyInterfaces, Class<? extends RuntimeException> exceptionClass) {
-		return (T)Proxy.newProxyInstance(getClass().getClassLoader(), strategyInterfaces, new StrategyInvocationHandler(this, key, exceptionClass));
+		PropertyResolutionCache resolutionCache = getCategorization().getResolutionCache();
+		if(resolutionCache.accepts(key))
+			return (T)resolutionCache.getStrategy(this, key, strategyInterfaces, exceptionClass);
+		return newStrategy(key, strategyInterfaces, exceptionClass);
+	}
+	
+	<T> T newStrategy(Key key, Class<?>[] strategyInterfaces, Class<? extends RuntimeException> exceptionClass) {
+		StrategyInvocationHandler invocationHandler;
+		PropertyResolutionCache resolutionCache = getCategorization().getResolutionCache();
+		if(resolutionCache.accepts(key))
+			invocationHandler = new StrategyInvocationHandler(this, key, exceptionClass, resolutionCache.chainSupplier(this, key));
+		else
+			invocationHandler = new StrategyInvocationHandler(this, key, exceptionClass);
+		return (T)Proxy.newProxyInstance(getClass().getClassLoader(), strategyInterfaces, invocationHandler);
 	}
 	
 	
+	/**
+	 * 
+	 * @return the dense id of this category in its categorization. 
+	 */
+	int getId() {
+		int categoryId = id;
+		if(categoryId == -1) {
+			getAncestorSet(); //ancestors are assigned an id first
+			synchronized(this) {
+				if(id == -1)
+					id = getCategorization().nextCategoryId();
+				categoryId = id;
+			}
+		}
+		return categoryId;
+	}
+	
+	/**
+	 * The set of ancestors is computed once from the sets of the parents, since the parents of a category do not change.
+	 * @return the ids of the ancestors of this category.
+	 */
+	AncestorSet getAncestorSet() {
+		AncestorSet ancestors = ancestorSet;
+		if(ancestors == null) {
+			List<Category> parents = getParents();
+			List<AncestorSet> parentAncestors = new ArrayList<>();
+			int[] parentIds = new int[parents.size()];
+			for(int i = 0; i < parentIds.length; i++) {
+				Category parent = parents.get(i);
+				parentAncestors.add(parent.getAncestorSet());
+				parentIds[i] = parent.getId();
+			}
+			ancestors = parentIds.length == 0 ? AncestorSet.EMPTY : AncestorSet.union(parentAncestors, parentIds);
+			ancestorSet = ancestors;
+		}
+		return ancestors;
+	}
+	
+	/**
+	 * Answers in (nearly) constant time by means of a precomputed set of ancestors.
+	 * @param category a category.
+	 * @return true if the given category is a (strict) ancestor of this category. false otherwise.
+	 */
+	public boolean isDescendantOf(Category category) {
+		if(category.getCategorization() != getCategorization())
+			return false;
+		AncestorSet ancestors = getAncestorSet();
+		int ancestorId = category.id; //any ancestor of this category already has an id
+		return ancestorId != -1 && ancestors.contains(ancestorId);
+	}
+	
+	/**
+	 * @param categories other categories.
+	 * @return the categories that are ancestors of (or the same as) this category and all the given categories, in the order of the bottom-up linearization of this category.
+	 */
+	public <U extends Category> List<U> commonAncestors(Category... categories) {
+		AncestorSet common = getAncestorSet().with(getId());
+		for(Category category : categories) {
+			if(category.getCategorization() != getCategorization())
+				return new ArrayList<>();
+			common = common.intersect(category.getAncestorSet().with(category.getId()));
+		}
+		List<U> commonAncestors = new ArrayList<>();
+		for(Category candidate : this.<Category>bottomUpCategories()) {
+			if(common.contains(candidate.getId()))
+				commonAncestors.add((U) candidate);
+		}
+		return commonAncestors;
+	}
+	
 	/**
 	 * 
 	 * @return an optional with the super category.
@@ -227,7 +437,7 @@ public class Category implements Serializable {
 	 * @return the ancestors of this category.
 	 */
 	public <T extends Category> List<T> getAncestors() {
-		List<T> ancestors = bottomUpCategories();
+		List<T> ancestors = new ArrayList<>(this.<T>bottomUpCategories());
 		ancestors.remove(this);
 		return ancestors;
 	}
@@ -237,7 +447,7 @@ public class Category implements Serializable {
 	 * @return the known descendants of this category.
 	 */
 	public <T extends Category> List<T> getDescendants() {
-		List<T> descendants = topDownCategories();
+		List<T> descendants = new ArrayList<>(this.<T>topDownCategories());
 		descendants.remove(this);
 		return descendants;
 	}
@@ -259,22 +469,72 @@ public class Category implements Serializable {
 	}
 	
 	/**
-	 * 
-	 * @return a linearization using the default bottom-up linearization function.
+	 * The linearization is cached. Since the parents of a category do not change, it is computed only once.
+	 * @return an unmodifiable linearization using the default bottom-up linearization function.
 	 */
 	public <U extends Category> List<U> bottomUpCategories() {
-		if(bottomUpLinearization == null) {
-			bottomUpLinearization = linearize(getCategorization().getBottomUpLinearizationFunction());
+		Linearization linearization = bottomUpLinearization;
+		if(linearization == null) {
+			linearization = new Linearization(new ArrayList<>(linearize(getCategorization().getBottomUpLinearizationFunction())), 0);
+			bottomUpLinearization = linearization;
 		}
-		return (List<U>)bottomUpLinearization;
+		return (List<U>)linearization.categories;
 	}
 
 	/**
-	 * 
-	 * @return a linearization using the default top-down linearization function.
+	 * The linearization is cached until a new descendant is added to this category.
+	 * If the categorization maintains linearizations incrementally, new descendants are inserted in the cached linearization instead.
+	 * @return an unmodifiable linearization using the default top-down linearization function.
 	 */
 	public <U extends Category> List<U> topDownCategories() {
-		return (List<U>)linearize(getCategorization().getTopDownLinearizationFunction());
+		Linearization linearization = getCachedTopDownLinearization();
+		long version = descendantsVersion;
+		if(linearization == null || linearization.version != version) {
+			TraversalPolicy<Category> insertionPolicy = getCategorization().getInsertionPolicy();
+			IncrementalLinearization<Category> incrementalLinearization = insertionPolicy != null ? insertionPolicy.incrementalLinearization(this) : null;
+			if(incrementalLinearization != null)
+				linearization = new Linearization(incrementalLinearization, version);
+			else
+				linearization = new Linearization(new ArrayList<>(linearize(getCategorization().getTopDownLinearizationFunction())), version);
+			setCachedTopDownLinearization(linearization);
+		}
+		return (List<U>)linearization.getCategories();
+	}
+	
+	private Linearization getCachedTopDownLinearization() {
+		Object cached = topDownLinearization;
+		if(cached instanceof Reference)
+			return ((Reference<Linearization>) cached).get();
+		return (Linearization) cached;
+	}
+	
+	private void setCachedTopDownLinearization(Linearization linearization) {
+		if(getCategorization().retainsTopDownLinearizations())
+			topDownLinearization = linearization;
+		else
+			topDownLinearization = new WeakReference<>(linearization);
+	}
+	
+	/**
+	 * Updates the cached top-down linearization of this category after a new descendant has been added.
+	 * @param version the structural version of the categorization after the descendant has been added.
+	 * @param insertion the insertion of the new descendant (which does not have children yet) in incrementally maintained linearizations. null if the linearization should be invalidated.
+	 */
+	void onDescendantAdded(long version, LeafInsertion<Category> insertion) {
+		Linearization linearization = getCachedTopDownLinearization();
+		if(insertion != null && linearization != null && linearization.incrementalLinearization != null && linearization.version == descendantsVersion
+				&& linearization.incrementalLinearization.insertLeaf(insertion))
+			setCachedTopDownLinearization(new Linearization(linearization.incrementalLinearization, version));
+		descendantsVersion = version;
+	}
+	
+	/**
+	 * Discards the cached top-down linearization of this category after some of its descendants have been removed.
+	 * @param version the structural version of the categorization after the descendants have been removed.
+	 */
+	void onDescendantsRemoved(long version) {
+		topDownLinearization = null;
+		descendantsVersion = version;
 	}
 	
 	/**
@@ -286,12 +546,33 @@ public class Category implements Serializable {
 	}
 
 	/**
-	 * 
+	 * Subclasses maintaining their own children should report new categories with {@link Categorization#onCategoryAdded(Category)}.
 	 * @return the children of this category. The ordering in which children are returned is determined by subclasses.
 	 */
 	public <U extends Category> List<U> getChildren() {
 		return (List)children;
 	}
+	
+	/**
+	 * Unlike {@link #getChildren()}, subclasses may answer the children of this category without copying them.
+	 * @return the children of this category, in the same order as {@link #getChildren()}. It should not be modified.
+	 */
+	public <U extends Category> List<U> getChildrenView() {
+		return getChildren();
+	}
+	
+	/**
+	 * @param child a category.
+	 * @return the index of the given category in the children of this category (see {@link #getChildren()}). -1 if it is not a child of this category.
+	 */
+	public int indexOfChild(Category child) {
+		List<Category> currentChildren = getChildrenView();
+		for(int i = currentChildren.size() - 1; i >= 0; i--) { //new children are usually the last ones
+			if(currentChildren.get(i) == child)
+				return i;
+		}
+		return -1;
+	}
 
 //	protected void onAddChild(Category category) {
 //		categorization.notifyCategorizationListeners(category);
@@ -307,7 +588,50 @@ public class Category implements Serializable {
 	
 	@Override
 	public String toString() {
-		return properties.toString();
+		StringBuilder sb = new StringBuilder("{");
+		Object[] values = getVisibleValues();
+		for(int id = 0; id < values.length; id++) {
+			if(values[id] != null) {
+				if(sb.length() > 1)
+					sb.append(", ");
+				sb.append(getCategorization().getKeyRegistry().getKey(id)).append('=').append(values[id]);
+			}
+		}
+		return sb.append('}').toString();
+	}
+
+	/**
+	 * A cached linearization of categories.
+	 */
+	private static class Linearization {
+		
+		private final List<? extends Category> categories; //null if the linearization is maintained incrementally.
+		private final IncrementalLinearization<Category> incrementalLinearization; //null if the linearization is not maintained incrementally.
+		private final long version; //the structural version of the categorization from which the linearization was computed.
+		
+		/**
+		 * @param categories the linearized categories. The list should not be modified afterwards.
+		 * @param version the structural version of the categorization from which the linearization was computed.
+		 */
+		private Linearization(List<? extends Category> categories, long version) {
+			this.categories = Collections.unmodifiableList(categories);
+			this.incrementalLinearization = null;
+			this.version = version;
+		}
+		
+		/**
+		 * @param incrementalLinearization a linearization maintained incrementally.
+		 * @param version the structural version of the categorization the linearization corresponds to.
+		 */
+		private Linearization(IncrementalLinearization<Category> incrementalLinearization, long version) {
+			this.categories = null;
+			this.incrementalLinearization = incrementalLinearization;
+			this.version = version;
+		}
+		
+		private List<? extends Category> getCategories() {
+			return categories != null ? categories : incrementalLinearization.toList();
+		}
 	}
 
 }
@@ -2,12 +2,8 @@ package org.jcategory.category;
 
 import java.util.Iterator;
 import java.util.List;
-import java.util.Spliterator;
-import java.util.Spliterators;
+import java.util.NoSuchElementException;
 import java.util.function.Function;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
-import java.util.stream.StreamSupport;
 
 import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.FluentIterable;
@@ -27,15 +23,16 @@ public class CategoryProperty<T> {
 	
 	private final Category category;
 	private final Key key;
-	private final PropertyIterable<T> propertyIterable;
+	private final List<? extends Category> linearization; //null if the key is resolved according to the default bottom-up linearization function.
 	
 	/**
 	 * Resolves a given key according to the default bottom-up linearization function.
+	 * If the key is cacheable, its resolution is memoized in the resolution cache of the categorization.
 	 * @param category the category where a key is queried.
 	 * @param key the property identifier.
 	 */
 	public CategoryProperty(Category category, Key key) {
-		this(category, key, category.bottomUpCategories());
+		this(category, key, (List<? extends Category>) null);
 	}
 
 	/**
@@ -51,7 +48,21 @@ public class CategoryProperty<T> {
 	private CategoryProperty(Category category, Key key, List<? extends Category> linearization) {
 		this.category = category;
 		this.key = key;
-		this.propertyIterable = new PropertyIterable<T>(linearization, key);
+		this.linearization = linearization;
+	}
+	
+	private PropertyResolutionCache getResolutionCache() {
+		if(linearization == null && !category.getCategorization().getPropertyVersioning().isWriting()) { //memoized resolutions are invalidated when an update is committed
+			PropertyResolutionCache resolutionCache = category.getCategorization().getResolutionCache();
+			if(resolutionCache.accepts(key))
+				return resolutionCache;
+		}
+		return null;
+	}
+	
+	private Iterator<T> iterator() {
+		List<? extends Category> propertyNodes = linearization != null ? linearization : category.bottomUpCategories();
+		return new PropertyIterator<>(propertyNodes.iterator(), key);
 	}
 	
 	public Category getCategory() {
@@ -71,7 +82,16 @@ public class CategoryProperty<T> {
 	 * @return true if the key is present. false otherwise.
 	 */
 	public boolean isPresent() {
-		return propertyIterable.iterator().hasNext();
+		PropertyResolutionCache resolutionCache = getResolutionCache();
+		if(resolutionCache != null)
+			return resolutionCache.resolve(category, key) != null;
+		PropertyVersioning versioning = category.getCategorization().getPropertyVersioning();
+		versioning.pin();
+		try {
+			return iterator().hasNext();
+		} finally {
+			versioning.unpin();
+		}
 	}
 	
 	/**
@@ -79,7 +99,20 @@ public class CategoryProperty<T> {
 	 * @return the value of a key in a category. If the key is not set it will throw an exception.
 	 */
 	public T get() {
-		return propertyIterable.iterator().next();
+		PropertyResolutionCache resolutionCache = getResolutionCache();
+		if(resolutionCache != null) {
+			T value = (T) resolutionCache.resolve(category, key);
+			if(value == null)
+				throw new NoSuchElementException();
+			return value;
+		}
+		PropertyVersioning versioning = category.getCategorization().getPropertyVersioning();
+		versioning.pin();
+		try {
+			return iterator().next();
+		} finally {
+			versioning.unpin();
+		}
 	}
 	
 	/**
@@ -92,42 +125,46 @@ public class CategoryProperty<T> {
 	
 	
 	
+	/**
+	 * A lazy iterator over the values of a property in a sequence of categories.
+	 * Categories are visited only until the next value is found, so querying the first value costs time proportional to the position of the first category defining the property.
+	 */
 	public static class PropertyIterator<T> extends AbstractIterator<T> {
 		
 		private final Iterator<? extends Category> propertyNodes;
-		private Iterator<T> properties;
+		private Iterator<T> properties; //the remaining values of a multi-valued property in the last visited category.
 		private final Key key;
 		
 		public PropertyIterator(Category category, Key key) {
-			this((Iterator) category.bottomUpCategories(), key);
-		}
-
-		private <U> Stream<U> toStream(Iterator<U> it) {
-			return StreamSupport.stream(Spliterators.spliteratorUnknownSize(it, Spliterator.ORDERED), false);
+			this((Iterator) category.bottomUpCategories().iterator(), key);
 		}
 
 		public PropertyIterator(Iterator<? extends Category> propertyNodes, Key key) {
+			this.propertyNodes = propertyNodes;
 			this.key = key;
-			this.propertyNodes =  toStream(propertyNodes).filter(category -> category.containsLocalProperty(key))
-					.collect(Collectors.toList()).iterator();
 		}
 		
 		@Override
 		protected T computeNext() {
-			if (properties == null) {
-				if (propertyNodes.hasNext()) {
-					Category nextPropertiesNode = propertyNodes.next();
-					properties = (Iterator<T>) nextPropertiesNode.getLocalProperty(key).iterator();
-				} else {
+			while(true) {
+				if(properties != null) {
+					if(properties.hasNext())
+						return properties.next();
+					properties = null;
+				}
+				if(!propertyNodes.hasNext())
 					return endOfData();
+				Category nextPropertiesNode = propertyNodes.next();
+				if(key.isCacheable()) { //the value is read directly from the local map of the category
+					T property = (T) nextPropertiesNode.getLocalValue(key);
+					if(property != null)
+						return property;
+				} else {
+					List<T> nodeProperties = nextPropertiesNode.getLocalProperty(key);
+					if(!nodeProperties.isEmpty())
+						properties = nodeProperties.iterator();
 				}
 			}
-			if (properties.hasNext()) {
-				return properties.next();
-			} else {
-				properties = null;
-				return computeNext();
-			}
 		}
 	}
 
@@ -0,0 +1,281 @@
+package org.jcategory.category;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.jcategory.traversal.RedundancyCheck;
+import org.jcategory.traversal.SearchStrategy;
+import org.jcategory.traversal.TraversalPolicy;
+
+/**
+ * An immutable snapshot of a categorization.
+ * <p>
+ * Categories are stored in a contiguous array, sorted by id so ancestors precede their descendants, and identified by their index in such array.
+ * Parents, children and bottom-up linearizations are stored as arrays of indexes, and the local properties of all categories in a single table.
+ * Queries on a snapshot do not take locks nor allocate objects.
+ * Changes made to the categorization after the snapshot was taken are not visible in the snapshot.
+ * The keys of the properties are numbered by the snapshot, so properties are queried without consulting the (mutable) key registry of the categorization.
+ * Hot loops can find the id of a key once (see {@link #findKeyId(Key)}) and query properties by such id.
+ * </p>
+ * @param <T> the type of the categories.
+ */
+public class FrozenCategorization<T extends Category> {
+
+	private final long structureVersion; //the structure version of the categorization when this snapshot was taken.
+	private final Category[] categories; //the categories sorted by id, so ancestors precede their descendants.
+	private final int[] indexById; //the index of a category by its dense id. -1 if the category is not in this snapshot.
+	private final int[] parentOffsets; //the parents of the category at index i are at parentIndexes[parentOffsets[i]] ... parentIndexes[parentOffsets[i + 1] - 1].
+	private final int[] parentIndexes;
+	private final int[] childOffsets; //same layout as the parents.
+	private final int[] childIndexes;
+	private final int[] bottomUpOffsets; //same layout as the parents.
+	private final int[] bottomUpIndexes;
+	private final int[] propertyOffsets; //same layout as the parents.
+	private final int[] propertyKeyIds; //the ids of the keys of the local properties, in this snapshot.
+	private final Object[] propertyValues; //the values of the local properties.
+	private final Key[] keys; //the keys of the properties in this snapshot, by id.
+	private final Map<Key, Integer> keyIds; //the id of each key in this snapshot.
+	
+	/**
+	 * @param categorization the categorization to be frozen.
+	 */
+	FrozenCategorization(Categorization<T> categorization) {
+		structureVersion = categorization.getStructureVersion();
+		T root = categorization.getRoot();
+		if(root == null)
+			throw new IllegalStateException("A categorization without a root cannot be frozen.");
+		List<Category> topDownCategories = new ArrayList<>(root.linearize(TraversalPolicy.<Category>topDownTraversalPolicy(SearchStrategy.BREADTH_FIRST, RedundancyCheck.KEEP_FIRST)));
+		topDownCategories.sort(Comparator.comparingInt(Category::getId)); //a breadth-first traversal of a DAG may reach a category before one of its parents, but ancestors have smaller ids than their descendants.
+		categories = topDownCategories.toArray(new Category[topDownCategories.size()]);
+		
+		int maxId = -1;
+		for(Category category : categories) {
+			maxId = Math.max(maxId, category.getId());
+		}
+		indexById = new int[maxId + 1];
+		Arrays.fill(indexById, -1);
+		for(int i = 0; i < categories.length; i++) {
+			indexById[categories[i].getId()] = i;
+		}
+		
+		parentOffsets = new int[categories.length + 1];
+		parentIndexes = toIndexes(category -> category.getParents(), parentOffsets);
+		childOffsets = new int[categories.length + 1];
+		childIndexes = toIndexes(category -> category.getChildren(), childOffsets);
+		bottomUpOffsets = new int[categories.length + 1];
+		bottomUpIndexes = toIndexes(category -> category.bottomUpCategories(), bottomUpOffsets);
+		
+		propertyOffsets = new int[categories.length + 1];
+		KeyRegistry keyRegistry = categorization.getKeyRegistry();
+		List<Key> snapshotKeys = new ArrayList<>();
+		keyIds = new HashMap<>();
+		List<Integer> localKeyIds = new ArrayList<>();
+		List<Object> values = new ArrayList<>();
+		PropertyVersioning versioning = categorization.getPropertyVersioning();
+		versioning.pin(); //the snapshot does not see partially applied updates
+		try {
+			for(int i = 0; i < categories.length; i++) {
+				Object[] localValues = categories[i].getLocalValues();
+				for(int registryId = 0; registryId < localValues.length; registryId++) {
+					if(localValues[registryId] != null) {
+						Key key = keyRegistry.getKey(registryId);
+						Integer keyId = keyIds.get(key);
+						if(keyId == null) {
+							keyId = snapshotKeys.size();
+							snapshotKeys.add(key);
+							keyIds.put(key, keyId);
+						}
+						localKeyIds.add(keyId);
+						values.add(localValues[registryId]);
+					}
+				}
+				propertyOffsets[i + 1] = localKeyIds.size();
+			}
+		} finally {
+			versioning.unpin();
+		}
+		propertyKeyIds = localKeyIds.stream().mapToInt(Integer::intValue).toArray();
+		propertyValues = values.toArray();
+		keys = snapshotKeys.toArray(new Key[snapshotKeys.size()]);
+	}
+	
+	private int[] toIndexes(Function<Category, List<Category>> relatedCategories, int[] offsets) {
+		List<Integer> indexes = new ArrayList<>();
+		for(int i = 0; i < categories.length; i++) {
+			for(Category related : relatedCategories.apply(categories[i])) {
+				int index = indexOf(related);
+				if(index != -1) //categories added while taking the snapshot are ignored
+					indexes.add(index);
+			}
+			offsets[i + 1] = indexes.size();
+		}
+		return indexes.stream().mapToInt(Integer::intValue).toArray();
+	}
+	
+	/**
+	 * 
+	 * @return the structure version of the categorization when this snapshot was taken.
+	 */
+	public long getStructureVersion() {
+		return structureVersion;
+	}
+	
+	/**
+	 * 
+	 * @return the number of categories in this snapshot.
+	 */
+	public int size() {
+		return categories.length;
+	}
+	
+	/**
+	 * @param index the index of a category in this snapshot.
+	 * @return the category at the given index. The root is at index 0 and ancestors precede their descendants.
+	 */
+	public T getCategory(int index) {
+		return (T) categories[index];
+	}
+	
+	/**
+	 * @param category a category.
+	 * @return the index of the category in this snapshot. -1 if the category is not in this snapshot.
+	 */
+	public int indexOf(Category category) {
+		int id = category.getId();
+		int index = id < indexById.length ? indexById[id] : -1;
+		return index != -1 && categories[index] == category ? index : -1; //ids of categories of other categorizations may collide
+	}
+	
+	/**
+	 * @param index the index of a category.
+	 * @return the number of parents of the category.
+	 */
+	public int getParentCount(int index) {
+		return parentOffsets[index + 1] - parentOffsets[index];
+	}
+	
+	/**
+	 * @param index the index of a category.
+	 * @param i the position of a parent, from 0 to the number of parents (exclusive).
+	 * @return the index of the parent of the category at the given position.
+	 */
+	public int getParent(int index, int i) {
+		return parentIndexes[parentOffsets[index] + i];
+	}
+	
+	/**
+	 * @param index the index of a category.
+	 * @return the number of children of the category.
+	 */
+	public int getChildCount(int index) {
+		return childOffsets[index + 1] - childOffsets[index];
+	}
+	
+	/**
+	 * @param index the index of a category.
+	 * @param i the position of a child, from 0 to the number of children (exclusive).
+	 * @return the index of the child of the category at the given position.
+	 */
+	public int getChild(int index, int i) {
+		return childIndexes[childOffsets[index] + i];
+	}
+	
+	/**
+	 * @param index the index of a category.
+	 * @return the length of the bottom-up linearization of the category.
+	 */
+	public int getBottomUpLength(int index) {
+		return bottomUpOffsets[index + 1] - bottomUpOffsets[index];
+	}
+	
+	/**
+	 * @param index the index of a category.
+	 * @param i a position in the bottom-up linearization of the category.
+	 * @return the index of the category at the given position in the bottom-up linearization of the category.
+	 */
+	public int getBottomUp(int index, int i) {
+		return bottomUpIndexes[bottomUpOffsets[index] + i];
+	}
+	
+	/**
+	 * @param key a property identifier.
+	 * @return the id of the key in this snapshot. -1 if no category of this snapshot has such property.
+	 */
+	public int findKeyId(Key key) {
+		Integer keyId = keyIds.get(key);
+		return keyId != null ? keyId : -1;
+	}
+	
+	/**
+	 * 
+	 * @return the number of keys of the properties in this snapshot.
+	 */
+	public int getKeyCount() {
+		return keys.length;
+	}
+	
+	/**
+	 * @param keyId the id of a key in this snapshot.
+	 * @return the key with the given id.
+	 */
+	public Key getKey(int keyId) {
+		return keys[keyId];
+	}
+	
+	/**
+	 * @param index the index of a category.
+	 * @param key the property identifier. Only properties stored in the categories are included in a snapshot.
+	 * @return the value of the property in the category, or null if the property is not locally present.
+	 */
+	public <V> V getLocalProperty(int index, Key key) {
+		return getLocalProperty(index, findKeyId(key));
+	}
+	
+	/**
+	 * @param index the index of a category.
+	 * @param keyId the id of the property key in this snapshot (see {@link #findKeyId(Key)}). -1 if the key is not in this snapshot.
+	 * @return the value of the property in the category, or null if the property is not locally present.
+	 */
+	public <V> V getLocalProperty(int index, int keyId) {
+		return keyId == -1 ? null : (V) getLocalValue(index, keyId);
+	}
+	
+	/**
+	 * @param index the index of a category.
+	 * @param key the property identifier. Only properties stored in the categories are included in a snapshot.
+	 * @return the first value of the property in the bottom-up linearization of the category, or null if the property is not defined.
+	 */
+	public <V> V getProperty(int index, Key key) {
+		return getProperty(index, findKeyId(key));
+	}
+	
+	/**
+	 * @param index the index of a category.
+	 * @param keyId the id of the property key in this snapshot (see {@link #findKeyId(Key)}). -1 if the key is not in this snapshot.
+	 * @return the first value of the property in the bottom-up linearization of the category, or null if the property is not defined.
+	 */
+	public <V> V getProperty(int index, int keyId) {
+		if(keyId != -1) {
+			for(int i = bottomUpOffsets[index]; i < bottomUpOffsets[index + 1]; i++) {
+				Object value = getLocalValue(bottomUpIndexes[i], keyId);
+				if(value != null)
+					return (V) value;
+			}
+		}
+		return null;
+	}
+	
+	private Object getLocalValue(int index, int keyId) {
+		for(int i = propertyOffsets[index]; i < propertyOffsets[index + 1]; i++) {
+			if(propertyKeyIds[i] == keyId)
+				return propertyValues[i];
+		}
+		return null;
+	}
+	
+}
@@ -31,4 +31,13 @@ public interface Key {
 	 */
 	void removeFromCategory(Category category);
 
+	/**
+	 * A cacheable key stores its (single) value in the local map of a category, so its values can be read directly and any modification of them can be tracked.
+	 * @return true if the effective value of the property represented by this object can be memoized. false otherwise.
+	 * @see PropertyResolutionCache
+	 */
+	default boolean isCacheable() {
+		return false;
+	}
+
 }
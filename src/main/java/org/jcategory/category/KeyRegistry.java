@@ -0,0 +1,105 @@
+package org.jcategory.category;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Assigns dense integer ids to the keys of the properties stored in the categories of a categorization.
+ * Categories store their local properties in arrays indexed by such ids.
+ * <p>
+ * Keys are registered when a property is first stored. Look-ups do not block. 
+ * A {@link SingletonKey} remembers the last id it got, so looking it up again in the same registry does not require hashing.
+ * </p>
+ */
+public class KeyRegistry implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+	
+	private final Map<Key, Integer> ids; //the ids of the registered keys.
+	private volatile Key[] keys; //the registered keys, indexed by id.
+	private int size; //the number of registered keys. Guarded by this registry.
+	
+	public KeyRegistry() {
+		ids = new ConcurrentHashMap<>();
+		keys = new Key[8];
+	}
+	
+	/**
+	 * 
+	 * @return the number of registered keys.
+	 */
+	public synchronized int size() {
+		return size;
+	}
+	
+	/**
+	 * @param key a property identifier.
+	 * @return the id of the given key. -1 if the key has not been registered.
+	 */
+	public int findId(Key key) {
+		if(key instanceof SingletonKey) {
+			Registration registration = ((SingletonKey) key).registration;
+			if(registration != null && registration.registry == this)
+				return registration.id;
+		}
+		Integer id = ids.get(key);
+		if(id == null)
+			return -1;
+		remember(key, id);
+		return id;
+	}
+	
+	/**
+	 * @param id the id of a registered key.
+	 * @return the key with the given id.
+	 */
+	public Key getKey(int id) {
+		return keys[id];
+	}
+	
+	/**
+	 * @param key a property identifier.
+	 * @return the id of the given key, registering it if necessary.
+	 */
+	int register(Key key) {
+		int id = findId(key);
+		if(id == -1) {
+			synchronized(this) {
+				Integer registeredId = ids.get(key);
+				if(registeredId == null) {
+					registeredId = size;
+					if(size == keys.length)
+						keys = Arrays.copyOf(keys, size * 2);
+					keys[size++] = key;
+					ids.put(key, registeredId);
+				}
+				id = registeredId;
+			}
+			remember(key, id);
+		}
+		return id;
+	}
+	
+	private void remember(Key key, int id) {
+		if(key instanceof SingletonKey)
+			((SingletonKey) key).registration = new Registration(this, id);
+	}
+	
+	
+	/**
+	 * The id of a key in a registry.
+	 */
+	static class Registration {
+		
+		private final KeyRegistry registry;
+		private final int id;
+		
+		private Registration(KeyRegistry registry, int id) {
+			this.registry = registry;
+			this.id = id;
+		}
+	}
+	
+}
@@ -0,0 +1,20 @@
+package org.jcategory.category;
+
+/**
+ * Determines how cached top-down linearizations are maintained when a new category is added to a categorization.
+ *
+ */
+public enum LinearizationMaintenance {
+	/**
+	 * Discard the cached top-down linearizations of the ancestors of the new category. They are recomputed the next time they are requested.
+	 */
+	INVALIDATE, 
+	
+	/**
+	 * Insert the new category in the cached top-down linearizations of its ancestors.
+	 * Cached linearizations are kept in order-maintenance lists, so the new category is spliced in amortized logarithmic time per ancestor.
+	 * This requires the top-down linearization function of the categorization to be a {@link org.jcategory.traversal.TraversalPolicy} supporting incremental insertions (see {@link org.jcategory.traversal.TraversalPolicy#incrementalLinearization(Category)}).
+	 * Otherwise, linearizations are invalidated.
+	 */
+	INCREMENTAL;
+}
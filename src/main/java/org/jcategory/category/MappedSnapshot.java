@@ -0,0 +1,153 @@
+package org.jcategory.category;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
+
+import org.jcategory.category.SnapshotFormat.PropertyCodec;
+
+/**
+ * A snapshot of a categorization mapped in memory.
+ * Records are decoded only when their categories are materialized into a categorization, either all at once or lazily on first access.
+ * @param <T> the type of the categories.
+ * @see SnapshotFormat
+ */
+public class MappedSnapshot<T extends Category> {
+
+	private final SnapshotFormat<T> format;
+	private final ByteBuffer buffer; //the snapshot content. Only read with absolute positions, so it can be shared by several threads.
+	private final PropertyCodec[] propertyCodecs; //the codecs of the properties in the snapshot, by property index. Null if a property is not included in the format.
+	private final int size; //the number of categories.
+	private final int positionsStart; //the position of the table with the position of each record.
+	private final BitSet materialized; //the records already materialized. Guarded by this snapshot.
+	
+	MappedSnapshot(SnapshotFormat<T> format, ByteBuffer buffer) throws IOException {
+		this.format = format;
+		this.buffer = buffer;
+		if(buffer.limit() < 8 || buffer.getInt(0) != SnapshotFormat.MAGIC)
+			throw new IOException("Not a categorization snapshot.");
+		if(buffer.getInt(4) != SnapshotFormat.FORMAT_VERSION)
+			throw new IOException("Unsupported snapshot format version: " + buffer.getInt(4) + ".");
+		int position = 8;
+		String kind = SnapshotFormat.readString(buffer, position);
+		if(!kind.equals(format.getKind()))
+			throw new IOException("Snapshot of a " + kind + " categorization, expected " + format.getKind() + ".");
+		position += 4 + kind.getBytes(StandardCharsets.UTF_8).length;
+		propertyCodecs = new PropertyCodec[buffer.getInt(position)];
+		position += 4;
+		for(int i = 0; i < propertyCodecs.length; i++) {
+			String name = SnapshotFormat.readString(buffer, position);
+			propertyCodecs[i] = format.getPropertyCodec(name);
+			position += 4 + buffer.getInt(position);
+		}
+		size = buffer.getInt(position);
+		positionsStart = position + 4;
+		materialized = new BitSet(size);
+	}
+	
+	/**
+	 * 
+	 * @return the number of categories in this snapshot.
+	 */
+	public int size() {
+		return size;
+	}
+	
+	private int recordPosition(int index) {
+		return buffer.getInt(positionsStart + 4 * index);
+	}
+	
+	/**
+	 * @param index the index of a category in this snapshot. Categories are sorted by label.
+	 * @return the label of the category.
+	 */
+	public String getLabel(int index) {
+		return SnapshotFormat.readString(buffer, recordPosition(index));
+	}
+	
+	/**
+	 * @param label a category label.
+	 * @return the index of the category with the given label. -1 if it is not in this snapshot.
+	 */
+	public int indexOf(String label) {
+		int low = 0;
+		int high = size - 1;
+		while(low <= high) {
+			int middle = (low + high) >>> 1;
+			int comparison = getLabel(middle).compareTo(label);
+			if(comparison < 0)
+				low = middle + 1;
+			else if(comparison > 0)
+				high = middle - 1;
+			else
+				return middle;
+		}
+		return -1;
+	}
+	
+	/**
+	 * Creates all the categories of this snapshot in a categorization and sets their properties.
+	 * @param categorization the categorization.
+	 */
+	public void materializeAll(Categorization<T> categorization) {
+		categorization.atomically(() -> {
+			for(int i = 0; i < size; i++) {
+				materialize(categorization, format.getOrCreateCategory(categorization, getLabel(i)), i);
+			}
+		});
+	}
+	
+	/**
+	 * Sets the properties of the categories of this snapshot in a categorization when such categories are first accessed.
+	 * The properties of the categories that already exist are set immediately.
+	 * The categorization should notify its listeners synchronously, so the properties of a new category are set before it is returned.
+	 * @param categorization the categorization.
+	 */
+	public void attach(Categorization<T> categorization) {
+		format.addCategorizationListener(categorization, category -> materialize(categorization, category));
+		for(Category category : categorization.getRoot().<Category>topDownCategories()) {
+			materialize(categorization, (T) category);
+		}
+	}
+	
+	/**
+	 * Sets the properties in this snapshot of a category, if not already set.
+	 * @param categorization the categorization of the category.
+	 * @param category the category.
+	 */
+	public void materialize(Categorization<T> categorization, T category) {
+		int index = indexOf(format.labelOf(category));
+		if(index != -1)
+			materialize(categorization, category, index);
+	}
+	
+	private void materialize(Categorization<T> categorization, T category, int index) {
+		synchronized(this) {
+			if(materialized.get(index))
+				return;
+			materialized.set(index);
+		}
+		int position = recordPosition(index);
+		position += 4 + buffer.getInt(position); //skips the label
+		int propertyCount = buffer.getInt(position);
+		position += 4;
+		int recordPosition = position;
+		categorization.atomically(() -> {
+			int valuePosition = recordPosition;
+			for(int i = 0; i < propertyCount; i++) {
+				PropertyCodec propertyCodec = propertyCodecs[buffer.getInt(valuePosition)];
+				int length = buffer.getInt(valuePosition + 4);
+				valuePosition += 8;
+				if(propertyCodec != null) { //properties not included in the format are skipped
+					ByteBuffer value = buffer.duplicate();
+					value.position(valuePosition);
+					value.limit(valuePosition + length);
+					category.setProperty(propertyCodec.key, propertyCodec.codec.decode(value.slice()));
+				}
+				valuePosition += length;
+			}
+		});
+	}
+	
+}
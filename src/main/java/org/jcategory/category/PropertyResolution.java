@@ -0,0 +1,131 @@
+package org.jcategory.category;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * An entry of a property resolution cache.
+ * It memoizes the effective value of a property in a category, and the strategy objects created for such property in the category.
+ * An entry is discarded from its category when the property is modified in the category or in any of its ancestors.
+ * @see PropertyResolutionCache
+ */
+class PropertyResolution {
+
+	private static final Object ABSENT = new Object(); //marks a property that is not defined in a category nor in its ancestors.
+	
+	private volatile Object value; //the effective value of the property. null if not resolved yet.
+	private volatile Object[] chain; //all the values of the property in the bottom-up linearization of the category. null if not resolved yet.
+	private volatile Map<StrategySignature, Object> strategies; //lazily initialized strategy objects for the property.
+	private volatile boolean valid = true; //false once this entry has been discarded.
+	
+	/**
+	 * 
+	 * @return true if this entry has not been discarded from its category. false otherwise.
+	 */
+	boolean isValid() {
+		return valid;
+	}
+	
+	/**
+	 * Marks this entry as discarded, so holders of the entry stop using it.
+	 */
+	void invalidate() {
+		valid = false;
+	}
+	
+	/**
+	 * 
+	 * @return true if the effective value of the property has been memoized. false otherwise.
+	 */
+	boolean isResolved() {
+		return value != null;
+	}
+	
+	/**
+	 * 
+	 * @return the memoized effective value of the property. null if the property is not defined.
+	 */
+	Object getValue() {
+		Object resolvedValue = value;
+		return resolvedValue == ABSENT ? null : resolvedValue;
+	}
+	
+	/**
+	 * @param value the effective value of the property. null if the property is not defined.
+	 */
+	void setValue(Object value) {
+		this.value = value == null ? ABSENT : value;
+	}
+	
+	/**
+	 * 
+	 * @return the memoized values of the property in the bottom-up linearization of the category. null if not resolved yet.
+	 */
+	Object[] getChain() {
+		return chain;
+	}
+	
+	/**
+	 * @param chain the values of the property in the bottom-up linearization of the category.
+	 */
+	void setChain(Object[] chain) {
+		this.chain = chain;
+	}
+	
+	/**
+	 * @param strategyInterfaces the interfaces implemented by the strategy object.
+	 * @param exceptionClass instances of this exception class denote that a strategy delegates to the next one in the responsibility chain.
+	 * @param strategyFactory creates a strategy object if none has been memoized for the given interfaces and exception class.
+	 * @return a memoized strategy object.
+	 */
+	Object getStrategy(Class<?>[] strategyInterfaces, Class<? extends RuntimeException> exceptionClass, Function<StrategySignature, Object> strategyFactory) {
+		Map<StrategySignature, Object> strategyMap = strategies;
+		if(strategyMap == null) {
+			synchronized(this) {
+				strategyMap = strategies;
+				if(strategyMap == null) {
+					strategyMap = new ConcurrentHashMap<>();
+					strategies = strategyMap;
+				}
+			}
+		}
+		Object strategy = strategyMap.get(new StrategySignature(strategyInterfaces, exceptionClass));
+		if(strategy == null) //the interfaces are copied, since the given array may be modified afterwards
+			strategy = strategyMap.computeIfAbsent(new StrategySignature(strategyInterfaces.clone(), exceptionClass), strategyFactory);
+		return strategy;
+	}
+	
+	
+	/**
+	 * The interfaces and delegation exception class of a strategy object.
+	 */
+	static class StrategySignature {
+		
+		private final Class<?>[] strategyInterfaces;
+		private final Class<? extends RuntimeException> exceptionClass;
+		
+		StrategySignature(Class<?>[] strategyInterfaces, Class<? extends RuntimeException> exceptionClass) {
+			this.strategyInterfaces = strategyInterfaces;
+			this.exceptionClass = exceptionClass;
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * Arrays.hashCode(strategyInterfaces) + exceptionClass.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (!(obj instanceof StrategySignature))
+				return false;
+			StrategySignature other = (StrategySignature) obj;
+			return exceptionClass.equals(other.exceptionClass) && Arrays.equals(strategyInterfaces, other.strategyInterfaces);
+		}
+		
+	}
+	
+}
@@ -0,0 +1,218 @@
+package org.jcategory.category;
+
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.jcategory.category.CategoryProperty.PropertyIterable;
+
+/**
+ * A cache memoizing, for a given categorization, the effective value of a property in a category.
+ * The effective value is the first value found in the default bottom-up linearization of the category.
+ * <p>
+ * Entries are keyed by category and property identifier. Only properties identified by a cacheable key (see {@link Key#isCacheable()}) are memoized.
+ * An entry also keeps the strategy objects created for its property, so {@link Category#getStrategy(Key, Class[], Class)} answers the same object while the property does not change.
+ * Setting or removing a local property in a category invalidates the entries of such category and all its known descendants, for that property only.
+ * </p>
+ */
+public class PropertyResolutionCache implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private final LongAdder hits; //number of resolutions answered by the cache.
+	private final LongAdder misses; //number of resolutions that required a look-up in the category hierarchy.
+	private final AtomicLong invalidations; //incremented before each invalidation, so readers can detect a value computed while a property was modified.
+	private volatile boolean enabled;
+
+	/**
+	 * Creates an enabled resolution cache.
+	 */
+	public PropertyResolutionCache() {
+		hits = new LongAdder();
+		misses = new LongAdder();
+		invalidations = new AtomicLong();
+		enabled = true;
+	}
+
+	/**
+	 *
+	 * @return true if property resolutions are memoized. false otherwise.
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Enables or disables the memoization of property resolutions.
+	 * Invalidation keeps taking place while the cache is disabled, so it can be safely enabled again afterwards.
+	 * @param enabled true if property resolutions should be memoized. false otherwise.
+	 */
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	/**
+	 *
+	 * @return the number of property resolutions answered by the cache.
+	 */
+	public long getHitCount() {
+		return hits.sum();
+	}
+
+	/**
+	 *
+	 * @return the number of property resolutions that were not found in the cache.
+	 */
+	public long getMissCount() {
+		return misses.sum();
+	}
+
+	/**
+	 *
+	 * @param key the property identifier.
+	 * @return true if the resolution of the given key can be memoized by this cache.
+	 */
+	boolean accepts(Key key) {
+		return enabled && key.isCacheable();
+	}
+
+	/**
+	 * @param category the category where a property is queried.
+	 * @param key the property identifier. It must be accepted by this cache.
+	 * @return the effective value of the property in the given category, or null if the property is not defined.
+	 */
+	Object resolve(Category category, Key key) {
+		Map<Key, PropertyResolution> resolvedProperties = category.getResolvedProperties();
+		PropertyResolution resolution = resolvedProperties.get(key);
+		if(resolution != null && resolution.isResolved()) {
+			hits.increment();
+			return resolution.getValue();
+		}
+		misses.increment();
+		long invalidationsBeforeResolution = invalidations.get();
+		Object value;
+		PropertyVersioning versioning = category.getCategorization().getPropertyVersioning();
+		versioning.pin(); //the resolution does not see partially applied updates
+		try {
+			Iterator<?> it = new PropertyIterable<>(category.bottomUpCategories(), key).iterator();
+			value = it.hasNext() ? it.next() : null;
+		} finally {
+			versioning.unpin();
+		}
+		if(resolution == null)
+			resolution = resolvedProperties.computeIfAbsent(key, k -> new PropertyResolution());
+		resolution.setValue(value);
+		if(invalidations.get() != invalidationsBeforeResolution) //the property may have been modified during the resolution
+			discard(resolvedProperties, key, resolution);
+		return value;
+	}
+	
+	/**
+	 * @param category the category where the property is queried.
+	 * @param key the property identifier. It must be accepted by this cache.
+	 * @return a supplier of all the values of the property in the bottom-up linearization of the category. 
+	 * The values are resolved once and resolved again only after the property is modified in the category or in any of its ancestors.
+	 */
+	Supplier<Object[]> chainSupplier(Category category, Key key) {
+		return new ChainSupplier(category, key);
+	}
+	
+	private Object[] resolveChain(Category category, Key key, PropertyResolution resolution) {
+		Object[] chain = resolution.getChain();
+		if(chain != null) {
+			hits.increment();
+			return chain;
+		}
+		misses.increment();
+		long invalidationsBeforeResolution = invalidations.get();
+		List<Object> values = new ArrayList<>();
+		PropertyVersioning versioning = category.getCategorization().getPropertyVersioning();
+		versioning.pin(); //the resolution does not see partially applied updates
+		try {
+			for(Object value : new PropertyIterable<>(category.bottomUpCategories(), key)) {
+				values.add(value);
+			}
+		} finally {
+			versioning.unpin();
+		}
+		chain = values.toArray();
+		resolution.setChain(chain);
+		if(invalidations.get() != invalidationsBeforeResolution) //the property may have been modified during the resolution
+			discard(category.getResolvedProperties(), key, resolution);
+		return chain;
+	}
+	
+	private static void discard(Map<Key, PropertyResolution> resolvedProperties, Key key, PropertyResolution resolution) {
+		if(resolvedProperties.remove(key, resolution))
+			resolution.invalidate();
+	}
+	
+	/**
+	 * @param category the category where the strategy is requested.
+	 * @param key the property identifier. It must be accepted by this cache.
+	 * @param strategyInterfaces the interfaces implemented by the strategy object.
+	 * @param exceptionClass instances of this exception class denote that a strategy delegates to the next one in the responsibility chain.
+	 * @return a strategy object, reused until the property is modified in the category or in any of its ancestors.
+	 */
+	Object getStrategy(Category category, Key key, Class<?>[] strategyInterfaces, Class<? extends RuntimeException> exceptionClass) {
+		PropertyResolution resolution = category.getResolvedProperties().computeIfAbsent(key, k -> new PropertyResolution());
+		return resolution.getStrategy(strategyInterfaces, exceptionClass, signature -> category.newStrategy(key, strategyInterfaces, exceptionClass));
+	}
+
+	/**
+	 * Supplies the values of a property in a category, holding on to a cache entry while it is valid.
+	 */
+	private class ChainSupplier implements Supplier<Object[]> {
+		
+		private final Category category;
+		private final Key key;
+		private volatile PropertyResolution resolution; //the last cache entry used by this supplier.
+		
+		private ChainSupplier(Category category, Key key) {
+			this.category = category;
+			this.key = key;
+		}
+
+		@Override
+		public Object[] get() {
+			PropertyResolution currentResolution = resolution;
+			if(currentResolution == null || !currentResolution.isValid()) {
+				currentResolution = category.getResolvedProperties().computeIfAbsent(key, k -> new PropertyResolution());
+				resolution = currentResolution;
+			}
+			return resolveChain(category, key, currentResolution);
+		}
+	}
+	
+	/**
+	 * Discards the memoized values of a property in a category and its known descendants.
+	 * @param category the category where the property was modified.
+	 * @param key the property identifier.
+	 */
+	void invalidate(Category category, Key key) {
+		invalidations.incrementAndGet();
+		Set<Category> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+		Deque<Category> pending = new ArrayDeque<>();
+		pending.push(category);
+		while(!pending.isEmpty()) {
+			Category next = pending.pop();
+			if(visited.add(next)) {
+				next.removeResolvedProperty(key);
+				for(Category child : next.<Category>getChildren()) {
+					pending.push(child);
+				}
+			}
+		}
+	}
+
+}
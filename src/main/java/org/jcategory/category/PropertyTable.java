@@ -0,0 +1,47 @@
+package org.jcategory.category;
+
+/**
+ * A version of the local properties of a category.
+ * Versions are linked from the newest to the oldest, so readers pinned to an older version of the categorization can still find the properties visible at such version.
+ * A table is not modified once its version has been committed.
+ */
+class PropertyTable {
+
+	static final PropertyTable EMPTY = new PropertyTable(new Object[0], 0, null);
+	
+	final Object[] values; //property values indexed by the id of their keys in the key registry of the categorization.
+	final long version; //the version of the categorization where these values were written.
+	volatile PropertyTable previous; //the previous version of the properties. Null if it is not visible to any reader.
+	
+	PropertyTable(Object[] values, long version, PropertyTable previous) {
+		this.values = values;
+		this.version = version;
+		this.previous = previous;
+	}
+	
+	/**
+	 * @param readVersion the version of the categorization seen by a reader.
+	 * @return the newest table in this chain that is visible at the given version. 
+	 * Null if such table was unlinked, which happens only to readers that did not pin their version before a newer version was committed.
+	 */
+	PropertyTable visibleAt(long readVersion) {
+		PropertyTable table = this;
+		while(table != null && table.version > readVersion) {
+			table = table.previous;
+		}
+		return table;
+	}
+	
+	/**
+	 * Unlinks the versions that are not visible to any reader.
+	 * @param oldestReadVersion the oldest version of the categorization seen by a reader.
+	 * @return true if no older version is left. false if older versions are still visible to some reader.
+	 */
+	boolean prune(long oldestReadVersion) {
+		PropertyTable oldestVisible = visibleAt(oldestReadVersion);
+		if(oldestVisible != null && oldestVisible.previous != null)
+			oldestVisible.previous = null;
+		return previous == null;
+	}
+	
+}
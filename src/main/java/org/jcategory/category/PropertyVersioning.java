@@ -0,0 +1,225 @@
+package org.jcategory.category;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Multi-version concurrency control of the properties of a categorization.
+ * <p>
+ * Writers are serialized by a lock. All the properties written while holding the lock are labeled with a pending version, 
+ * which is committed at once when the outermost write is completed. 
+ * Readers see the properties labeled with the last committed version and never block. 
+ * A reader can pin such version, so a resolution spanning several categories does not see a partially applied update.
+ * Memoized resolutions of the written properties are invalidated after the commit.
+ * </p>
+ * <p>
+ * Versions of the properties that no reader can see are unlinked on commit.
+ * Categories keeping older versions for pinned readers are remembered, and pruned again by a later commit or when the oldest pinned reader is done.
+ * </p>
+ */
+class PropertyVersioning {
+
+	private static final long NOT_PINNED = -1;
+	
+	/**
+	 * The version pinned by a thread.
+	 */
+	private static class ReadPin {
+		private volatile long version = NOT_PINNED;
+		private int depth; //the number of nested pins. Accessed only by the owner thread.
+	}
+	
+	private final PropertyResolutionCache resolutionCache; //memoized resolutions to invalidate on commit.
+	private final ReentrantLock writeLock; //held while properties are written.
+	private volatile long committedVersion; //the version of the last committed write.
+	private long pendingVersion; //the version of the properties being written. Guarded by the write lock.
+	private final Map<Category, Set<Key>> pendingWrites; //the properties written with the pending version. Guarded by the write lock.
+	private final Set<Category> retainingCategories; //the categories keeping older versions of their properties for pinned readers. Guarded by the write lock.
+	private volatile long oldestRetainedVersion; //the oldest version pinned by a reader when the retaining categories were last pruned. NOT_PINNED if there are no retaining categories.
+	private final Set<ReadPin> readPins; //the pins of the live threads that read properties.
+	private final ThreadLocal<ReadPin> threadReadPin;
+	
+	PropertyVersioning(PropertyResolutionCache resolutionCache) {
+		this.resolutionCache = resolutionCache;
+		writeLock = new ReentrantLock();
+		pendingWrites = new IdentityHashMap<>();
+		retainingCategories = Collections.newSetFromMap(new IdentityHashMap<>());
+		oldestRetainedVersion = NOT_PINNED;
+		readPins = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>())); //a pin is discarded when its thread ends
+		threadReadPin = ThreadLocal.withInitial(() -> {
+			ReadPin readPin = new ReadPin();
+			readPins.add(readPin);
+			return readPin;
+		});
+	}
+	
+	/**
+	 * 
+	 * @return the version of the last committed write.
+	 */
+	long getCommittedVersion() {
+		return committedVersion;
+	}
+	
+	/**
+	 * 
+	 * @return the version of the properties visible to the current thread.
+	 */
+	long getReadVersion() {
+		if(writeLock.isHeldByCurrentThread())
+			return pendingVersion; //a writer sees its own writes
+		long pinnedVersion = threadReadPin.get().version;
+		return pinnedVersion != NOT_PINNED ? pinnedVersion : committedVersion;
+	}
+	
+	/**
+	 * 
+	 * @return true if the current thread is writing properties. false otherwise.
+	 */
+	boolean isWriting() {
+		return writeLock.isHeldByCurrentThread();
+	}
+	
+	/**
+	 * Pins the current committed version for the current thread, until the matching call to {@link #unpin()}.
+	 * Nested pins keep the version of the outermost one.
+	 */
+	void pin() {
+		ReadPin readPin = threadReadPin.get();
+		if(readPin.depth++ == 0) {
+			long version;
+			do {
+				version = committedVersion;
+				readPin.version = version;
+			} while(version != committedVersion); //otherwise a writer may have pruned the version before seeing the pin
+		}
+	}
+	
+	/**
+	 * Releases a pin of the current thread. If the outermost pin was the oldest one retaining older versions, such versions are pruned.
+	 */
+	void unpin() {
+		ReadPin readPin = threadReadPin.get();
+		if(--readPin.depth == 0) {
+			long pinnedVersion = readPin.version;
+			readPin.version = NOT_PINNED;
+			if(pinnedVersion <= oldestRetainedVersion)
+				pruneReleasedVersions();
+		}
+	}
+	
+	/**
+	 * Runs an update holding the write lock. The properties written by the outermost update are committed at once if it completes normally, and discarded otherwise.
+	 * @param update the update.
+	 */
+	void atomically(Runnable update) {
+		writeLock.lock();
+		try {
+			boolean outermost = writeLock.getHoldCount() == 1;
+			if(outermost)
+				pendingVersion = committedVersion + 1;
+			boolean completed = false;
+			try {
+				update.run();
+				completed = true;
+			} finally {
+				if(outermost) {
+					if(completed)
+						commit();
+					else
+						rollback();
+				}
+			}
+		} finally {
+			writeLock.unlock();
+		}
+		pruneReleasedVersions(); //a reader may have released its pin while the commit was pruning
+	}
+	
+	/**
+	 * 
+	 * @return the number of categories keeping older versions of their properties for pinned readers.
+	 */
+	int getRetainingCategoryCount() {
+		writeLock.lock();
+		try {
+			return retainingCategories.size();
+		} finally {
+			writeLock.unlock();
+		}
+	}
+	
+	/**
+	 * Must be called while holding the write lock.
+	 * @return the version of the properties being written.
+	 */
+	long getPendingVersion() {
+		return pendingVersion;
+	}
+	
+	/**
+	 * Records a property written with the pending version. Must be called while holding the write lock.
+	 * @param category the modified category.
+	 * @param key the property identifier.
+	 */
+	void recordWrite(Category category, Key key) {
+		pendingWrites.computeIfAbsent(category, c -> new LinkedHashSet<>()).add(key);
+	}
+	
+	private void commit() {
+		if(pendingWrites.isEmpty())
+			return;
+		committedVersion = pendingVersion;
+		for(Map.Entry<Category, Set<Key>> write : pendingWrites.entrySet()) {
+			retainingCategories.add(write.getKey());
+			for(Key key : write.getValue()) {
+				resolutionCache.invalidate(write.getKey(), key);
+			}
+		}
+		pendingWrites.clear();
+		prune();
+	}
+	
+	/**
+	 * Unlinks the versions of the properties of the retaining categories that are not visible to any reader. Must be called while holding the write lock.
+	 */
+	private void prune() {
+		long oldestReadVersion = committedVersion;
+		synchronized(readPins) {
+			for(ReadPin readPin : readPins) {
+				long pinnedVersion = readPin.version;
+				if(pinnedVersion != NOT_PINNED)
+					oldestReadVersion = Math.min(oldestReadVersion, pinnedVersion);
+			}
+		}
+		long readVersion = oldestReadVersion;
+		retainingCategories.removeIf(category -> category.prunePropertyTables(readVersion));
+		oldestRetainedVersion = retainingCategories.isEmpty() ? NOT_PINNED : oldestReadVersion;
+	}
+	
+	/**
+	 * Prunes the retaining categories, unless another thread is writing (its commit prunes them).
+	 */
+	private void pruneReleasedVersions() {
+		if(oldestRetainedVersion != NOT_PINNED && !writeLock.isHeldByCurrentThread() && writeLock.tryLock()) {
+			try {
+				prune();
+			} finally {
+				writeLock.unlock();
+			}
+		}
+	}
+	
+	private void rollback() {
+		for(Category category : pendingWrites.keySet()) {
+			category.discardPropertyTable(pendingVersion);
+		}
+		pendingWrites.clear();
+	}
+	
+}
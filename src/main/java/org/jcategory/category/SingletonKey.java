@@ -11,6 +11,7 @@ public class SingletonKey implements Key {
 
 
     protected final Object id;
+    transient volatile KeyRegistry.Registration registration; //the id of this key in the last registry where it was looked up.
 
     protected SingletonKey() {
         this(new Object());
@@ -53,6 +54,14 @@ public class SingletonKey implements Key {
         category.removeFromLocalMap(this);
     }
 
+    /**
+     * @return true, since the values of this key are always stored in the local map of a category.
+     */
+    @Override
+    public boolean isCacheable() {
+        return true;
+    }
+
     @Override
     public String toString() {
         return id.toString();
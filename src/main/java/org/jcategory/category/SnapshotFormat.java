@@ -0,0 +1,202 @@
+package org.jcategory.category;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jcategory.traversal.RedundancyCheck;
+import org.jcategory.traversal.SearchStrategy;
+import org.jcategory.traversal.TraversalPolicy;
+
+/**
+ * A compact binary format for snapshots of a categorization and the properties of its categories.
+ * <p>
+ * Categories are identified by a label (e.g., a name or a class name) and restored by getting or creating the category with such label.
+ * Only the properties added to the format with {@link #addProperty(String, Key, ValueCodec)} are written. Since keys are not persistent, they are identified by name.
+ * </p>
+ * <p>
+ * A snapshot is laid out as follows (all numbers are big-endian):
+ * the magic number "JCAT", the format version, the kind of categorization, the number of property names and the names, 
+ * the number of categories, a table with the position of each category record, and the records sorted by label.
+ * A record contains the label of a category, its number of properties, and for each property the index of its name, the length of its encoded value and the encoded value.
+ * Strings are written as their length followed by their UTF-8 bytes.
+ * </p>
+ * @param <T> the type of the categories.
+ */
+public abstract class SnapshotFormat<T extends Category> {
+
+	static final int MAGIC = 0x4A434154; //"JCAT"
+	static final int FORMAT_VERSION = 1;
+	
+	private final String kind; //identifies the kind of categorization of a snapshot.
+	private final Map<String, PropertyCodec> propertyCodecs; //the codecs of the properties, by property name.
+	
+	/**
+	 * The persistent name of a property and the codec of its values.
+	 */
+	static class PropertyCodec {
+		final String name;
+		final Key key;
+		final ValueCodec<Object> codec;
+		
+		private PropertyCodec(String name, Key key, ValueCodec<Object> codec) {
+			this.name = name;
+			this.key = key;
+			this.codec = codec;
+		}
+	}
+	
+	/**
+	 * @param kind identifies the kind of categorization of a snapshot.
+	 */
+	protected SnapshotFormat(String kind) {
+		this.kind = kind;
+		propertyCodecs = new LinkedHashMap<>();
+	}
+	
+	/**
+	 * Includes a property in the snapshots written and restored with this format.
+	 * @param name the persistent name of the property.
+	 * @param key the property identifier.
+	 * @param codec the codec of the values of the property.
+	 */
+	public void addProperty(String name, Key key, ValueCodec<?> codec) {
+		propertyCodecs.put(name, new PropertyCodec(name, key, (ValueCodec<Object>) codec));
+	}
+	
+	/**
+	 * @param name the persistent name of a property.
+	 * @return the codec of the property. Null if the property is not included in this format.
+	 */
+	PropertyCodec getPropertyCodec(String name) {
+		return propertyCodecs.get(name);
+	}
+	
+	String getKind() {
+		return kind;
+	}
+	
+	/**
+	 * @param category a category.
+	 * @return the label identifying the category in a snapshot.
+	 */
+	protected abstract String labelOf(T category);
+	
+	/**
+	 * @param categorization a categorization.
+	 * @param label the label of a category in a snapshot.
+	 * @return the category with the given label, created if it does not exist.
+	 */
+	protected abstract T getOrCreateCategory(Categorization<T> categorization, String label);
+	
+	/**
+	 * @param categorization a categorization.
+	 * @param listener a listener to be notified when a new category is added to the categorization.
+	 */
+	protected abstract void addCategorizationListener(Categorization<T> categorization, CategorizationListener<T> listener);
+	
+	/**
+	 * Writes a snapshot of all the categories of a categorization and their properties included in this format.
+	 * @param categorization the categorization.
+	 * @param file the snapshot file. It is overwritten if it exists.
+	 * @throws IOException if the snapshot cannot be written.
+	 */
+	public void write(Categorization<T> categorization, Path file) throws IOException {
+		List<T> categories = categorization.getRoot().linearize(TraversalPolicy.<T>topDownTraversalPolicy(SearchStrategy.BREADTH_FIRST, RedundancyCheck.KEEP_FIRST));
+		List<String> labels = new ArrayList<>();
+		for(T category : categories) {
+			labels.add(labelOf(category));
+		}
+		List<Integer> order = new ArrayList<>();
+		for(int i = 0; i < categories.size(); i++) {
+			order.add(i);
+		}
+		order.sort(Comparator.comparing(labels::get));
+		
+		ByteArrayOutputStream header = new ByteArrayOutputStream();
+		DataOutputStream headerOutput = new DataOutputStream(header);
+		headerOutput.writeInt(MAGIC);
+		headerOutput.writeInt(FORMAT_VERSION);
+		writeString(kind, headerOutput);
+		List<PropertyCodec> codecs = new ArrayList<>(propertyCodecs.values());
+		headerOutput.writeInt(codecs.size());
+		for(PropertyCodec propertyCodec : codecs) {
+			writeString(propertyCodec.name, headerOutput);
+		}
+		headerOutput.writeInt(categories.size());
+		int recordsStart = header.size() + 4 * categories.size(); //the records follow the table of positions
+		
+		ByteArrayOutputStream records = new ByteArrayOutputStream();
+		DataOutputStream recordsOutput = new DataOutputStream(records);
+		ByteArrayOutputStream value = new ByteArrayOutputStream();
+		DataOutputStream valueOutput = new DataOutputStream(value);
+		for(int index : order) {
+			headerOutput.writeInt(recordsStart + records.size());
+			writeString(labels.get(index), recordsOutput);
+			List<Object> values = new ArrayList<>();
+			for(PropertyCodec propertyCodec : codecs) {
+				List<Object> localValues = categories.get(index).getLocalProperty(propertyCodec.key);
+				values.add(localValues.isEmpty() ? null : localValues.get(0));
+			}
+			recordsOutput.writeInt((int) values.stream().filter(v -> v != null).count());
+			for(int i = 0; i < codecs.size(); i++) {
+				if(values.get(i) != null) {
+					value.reset();
+					codecs.get(i).codec.encode(values.get(i), valueOutput);
+					valueOutput.flush();
+					recordsOutput.writeInt(i);
+					recordsOutput.writeInt(value.size());
+					value.writeTo(recordsOutput);
+				}
+			}
+		}
+		headerOutput.flush();
+		recordsOutput.flush();
+		try(OutputStream output = Files.newOutputStream(file)) {
+			header.writeTo(output);
+			records.writeTo(output);
+		}
+	}
+	
+	/**
+	 * Maps a snapshot file in memory. Categories are decoded only when materialized.
+	 * @param file the snapshot file.
+	 * @return the mapped snapshot.
+	 * @throws IOException if the file cannot be read or it is not a snapshot written with a format of the same kind.
+	 */
+	public MappedSnapshot<T> map(Path file) throws IOException {
+		ByteBuffer buffer;
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()); //the mapping remains valid after the channel is closed
+		}
+		return new MappedSnapshot<>(this, buffer);
+	}
+	
+	static void writeString(String string, DataOutputStream output) throws IOException {
+		byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+		output.writeInt(bytes.length);
+		output.write(bytes);
+	}
+	
+	static String readString(ByteBuffer buffer, int position) {
+		int length = buffer.getInt(position);
+		byte[] bytes = new byte[length];
+		ByteBuffer view = buffer.duplicate();
+		view.position(position + 4);
+		view.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+	
+}
@@ -0,0 +1,28 @@
+package org.jcategory.category;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes and decodes the values of a property in a binary snapshot of a categorization.
+ * @param <V> the type of the values.
+ * @see SnapshotFormat
+ * @see ValueCodecs
+ */
+public interface ValueCodec<V> {
+
+	/**
+	 * @param value a property value.
+	 * @param output where the value is written.
+	 * @throws IOException if the value cannot be written.
+	 */
+	void encode(V value, DataOutput output) throws IOException;
+	
+	/**
+	 * @param input a buffer positioned at the start of an encoded value. Its limit is the end of the value.
+	 * @return the decoded value.
+	 */
+	V decode(ByteBuffer input);
+	
+}
@@ -0,0 +1,78 @@
+package org.jcategory.category;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Codecs for common property values.
+ */
+public final class ValueCodecs {
+
+	public static final ValueCodec<String> STRING = new ValueCodec<String>() {
+		@Override
+		public void encode(String value, DataOutput output) throws IOException {
+			output.write(value.getBytes(StandardCharsets.UTF_8));
+		}
+
+		@Override
+		public String decode(ByteBuffer input) {
+			byte[] bytes = new byte[input.remaining()];
+			input.get(bytes);
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+	};
+	
+	public static final ValueCodec<Integer> INTEGER = new ValueCodec<Integer>() {
+		@Override
+		public void encode(Integer value, DataOutput output) throws IOException {
+			output.writeInt(value);
+		}
+
+		@Override
+		public Integer decode(ByteBuffer input) {
+			return input.getInt();
+		}
+	};
+	
+	public static final ValueCodec<Long> LONG = new ValueCodec<Long>() {
+		@Override
+		public void encode(Long value, DataOutput output) throws IOException {
+			output.writeLong(value);
+		}
+
+		@Override
+		public Long decode(ByteBuffer input) {
+			return input.getLong();
+		}
+	};
+	
+	public static final ValueCodec<Double> DOUBLE = new ValueCodec<Double>() {
+		@Override
+		public void encode(Double value, DataOutput output) throws IOException {
+			output.writeDouble(value);
+		}
+
+		@Override
+		public Double decode(ByteBuffer input) {
+			return input.getDouble();
+		}
+	};
+	
+	public static final ValueCodec<Boolean> BOOLEAN = new ValueCodec<Boolean>() {
+		@Override
+		public void encode(Boolean value, DataOutput output) throws IOException {
+			output.writeBoolean(value);
+		}
+
+		@Override
+		public Boolean decode(ByteBuffer input) {
+			return input.get() != 0;
+		}
+	};
+	
+	private ValueCodecs() {
+	}
+	
+}
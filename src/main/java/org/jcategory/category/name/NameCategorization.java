@@ -1,7 +1,11 @@
 package org.jcategory.category.name;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Function;
 
 import org.jcategory.category.Categorization;
@@ -12,13 +16,22 @@ import org.jcategory.category.CategorizationListenersManager;
  * The hierarchy of a named categorization is implicitly specified by the names of its categories. 
  * Those names contain a list of ancestors using dots as token separator.
  * For example, a category named "org" is the parent of a category named "org.jcategory" and the ancestor of a category named "org.jcategory.JCategory".
+ * <p>
+ * Name categories can be queried and created concurrently. Look-ups of existing categories do not block.
+ * Categories are created one at a time while holding a creation lock, so each category is created once, 
+ * and listeners are notified of each new category exactly once, after the creation lock has been released.
+ * </p>
  * @author sergioc
  *
  */
 public class NameCategorization extends Categorization<NameCategory> {
 
-	private NameCategory nameCategoryRoot;
+	private volatile NameCategory nameCategoryRoot;
 	private final CategorizationListenersManager listenersManager; //category listeners notified when a new category is created.
+	private final ReentrantLock creationLock; //held while categories are created.
+	private final List<NameCategory> pendingNotifications; //categories created while holding the creation lock, not yet notified to the listeners.
+	private volatile NameIntervalIndex intervalIndex; //labels categories with nested intervals for subtree queries. Null if disabled.
+	private volatile Map<String, NameCategory> nameIndex; //categories by full name. Null if disabled.
 	
 	/**
      * @param bottomUpLinearizationFunction the bottom-up linearization function.
@@ -39,19 +52,155 @@ public class NameCategorization extends Categorization<NameCategory> {
                               List<? extends CategorizationListener<NameCategory>> categorizationListeners) {
 		super((Function)bottomUpLinearizationFunction, (Function)topDownLinearizationFunction);
 		listenersManager = new CategorizationListenersManager((List)categorizationListeners);
+		creationLock = new ReentrantLock();
+		pendingNotifications = new ArrayList<>();
 	}
 	
 	/**
 	 * The root id category (with an empty id)
 	 */
 	public NameCategory getRoot() {
-		if(nameCategoryRoot == null) {
-			nameCategoryRoot = new NameCategory(this);
-			notifyCategorizationListeners(nameCategoryRoot);
+		NameCategory root = nameCategoryRoot;
+		if(root == null) {
+			lockCreation();
+			try {
+				root = nameCategoryRoot;
+				if(root == null) {
+					root = new NameCategory(this);
+					nameCategoryRoot = root;
+					pendingNotifications.add(root);
+				}
+			} finally {
+				releaseCreationLock();
+			}
 		}
-		return nameCategoryRoot;
+		return root;
 	}
 
+	/**
+	 * Acquires the creation lock. It must be released with {@link #releaseCreationLock()}.
+	 */
+	void lockCreation() {
+		creationLock.lock();
+	}
+	
+	/**
+	 * Releases the creation lock. If it is not held anymore by the current thread, the listeners are notified of the categories created in the meantime.
+	 * Asynchronous notifications are queued while still holding the lock.
+	 */
+	void releaseCreationLock() {
+		List<NameCategory> newCategories = Collections.emptyList();
+		if(creationLock.getHoldCount() == 1 && !pendingNotifications.isEmpty()) {
+			newCategories = new ArrayList<>(pendingNotifications);
+			pendingNotifications.clear();
+		}
+		Runnable notification;
+		try {
+			notification = listenersManager.handOver(newCategories); //queued before releasing the lock, so batches are queued in creation order
+		} finally {
+			creationLock.unlock();
+		}
+		notification.run();
+	}
+	
+	/**
+	 * Labels a new (non-root) category in the interval and name indexes.
+	 * Must be called while holding the creation lock, before the category is published as a child of its parent.
+	 * @param newCategory the new category.
+	 */
+	void indexCategory(NameCategory newCategory) {
+		NameIntervalIndex currentIntervalIndex = intervalIndex;
+		if(currentIntervalIndex != null)
+			currentIntervalIndex.insert(newCategory);
+		Map<String, NameCategory> currentNameIndex = nameIndex;
+		if(currentNameIndex != null)
+			currentNameIndex.put(newCategory.getLabel(), newCategory);
+	}
+	
+	/**
+	 * Registers a new (non-root) category. Listeners are notified when the creation lock is released. 
+	 * Must be called while holding the creation lock, after the category is published as a child of its parent.
+	 * @param newCategory the new category.
+	 */
+	void addCategory(NameCategory newCategory) {
+		onCategoryAdded(newCategory);
+		pendingNotifications.add(newCategory);
+	}
+	
+	/**
+	 * 
+	 * @return true if categories are labeled with nested intervals for answering subtree queries. false otherwise.
+	 */
+	public boolean isIntervalIndexEnabled() {
+		return intervalIndex != null;
+	}
+	
+	/**
+	 * Enables or disables the interval labeling of categories.
+	 * When enabled, {@link NameCategory#isDescendantOf(org.jcategory.category.Category)}, {@link NameCategory#getSubtreeCategories()} and {@link NameCategory#getSubtreeSize()} 
+	 * are answered by comparing and scanning interval labels instead of traversing the categorization.
+	 * @param enabled true if categories should be labeled. false otherwise.
+	 */
+	public void setIntervalIndexEnabled(boolean enabled) {
+		NameCategory root = getRoot();
+		lockCreation();
+		try {
+			if(enabled && intervalIndex == null)
+				intervalIndex = new NameIntervalIndex(root);
+			else if(!enabled)
+				intervalIndex = null;
+		} finally {
+			releaseCreationLock();
+		}
+	}
+	
+	/**
+	 * 
+	 * @return true if categories are indexed by full name. false otherwise.
+	 */
+	public boolean isNameIndexEnabled() {
+		return nameIndex != null;
+	}
+	
+	/**
+	 * Enables or disables the indexing of categories by full name.
+	 * When enabled, finding an existing category by its full name from the root is a single hash look-up. Names are walked segment by segment only if not found in the index.
+	 * @param enabled true if categories should be indexed by full name. false otherwise.
+	 */
+	public void setNameIndexEnabled(boolean enabled) {
+		NameCategory root = getRoot();
+		lockCreation();
+		try {
+			if(enabled && nameIndex == null) {
+				Map<String, NameCategory> newNameIndex = new ConcurrentHashMap<>();
+				for(NameCategory category : root.<NameCategory>topDownCategories()) {
+					newNameIndex.put(category.getLabel(), category);
+				}
+				nameIndex = newNameIndex;
+			} else if(!enabled) {
+				nameIndex = null;
+			}
+		} finally {
+			releaseCreationLock();
+		}
+	}
+	
+	/**
+	 * @param name a full name.
+	 * @return the category with the given full name if the categorization is indexed by full name and the category exists. Null otherwise.
+	 */
+	NameCategory findIndexed(String name) {
+		Map<String, NameCategory> currentNameIndex = nameIndex;
+		return currentNameIndex != null ? currentNameIndex.get(name) : null;
+	}
+	
+	/**
+	 * 
+	 * @return the interval index of this categorization. Null if disabled.
+	 */
+	NameIntervalIndex getIntervalIndex() {
+		return intervalIndex;
+	}
 	
 	protected void notifyCategorizationListeners(NameCategory newCategory) {
 		listenersManager.notifyCategorizationListeners(newCategory);
@@ -65,4 +214,12 @@ public class NameCategorization extends Categorization<NameCategory> {
 		listenersManager.add(creationListener);
 	}
 	
+	/**
+	 * 
+	 * @return the manager of the listeners of this categorization. It determines how notifications are delivered.
+	 */
+	public CategorizationListenersManager getListenersManager() {
+		return listenersManager;
+	}
+	
 }
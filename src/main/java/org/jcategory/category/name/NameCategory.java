@@ -3,11 +3,11 @@ package org.jcategory.category.name;
 import static java.util.Arrays.asList;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
-import java.util.TreeMap;
 import java.util.function.Predicate;
 
+import org.jcategory.category.Category;
 import org.jcategory.category.LabeledCategory;
 import org.jcategory.traversal.RedundancyCheck;
 import org.jcategory.traversal.SearchStrategy;
@@ -23,20 +23,12 @@ import com.google.common.collect.Lists;
  */
 public class NameCategory extends LabeledCategory<String> {
 
-	private Map<String, NameCategory> children; //the children categories
+	private static final NameCategory[] NO_CHILDREN = new NameCategory[0];
+	
+	private volatile NameCategory[] children; //the children categories, sorted by their simple names. Replaced (not modified) when a child is added.
 	private List<NameCategory> parents; //the parent category
 	private final String simpleName; //the simple id of the category
-	
-	static List<String> asPackageFragmentsList(String simpleName) {
-		List<String> packageFragmentsList;
-		if(simpleName.isEmpty())
-			packageFragmentsList = new ArrayList<>();
-		else {
-			String[] packageFragments = simpleName.split("\\.");
-			packageFragmentsList = asList(packageFragments);
-		}
-		return packageFragmentsList;
-	}
+	private NameIntervalIndex.Interval interval; //the labels of this category in the interval index of its categorization.
 	
 	/**
 	 * Creates a root NamedCategory
@@ -44,7 +36,7 @@ public class NameCategory extends LabeledCategory<String> {
 	NameCategory(NameCategorization namedCategorization) {
 		super(namedCategorization, "");
 		this.simpleName = "";
-		children = new TreeMap<>(); //to preserve insertion order
+		children = NO_CHILDREN;
 	}
 	
 	/**
@@ -54,7 +46,7 @@ public class NameCategory extends LabeledCategory<String> {
 	NameCategory(String simpleName, NameCategory parent) {
 		super(parent.getName(simpleName), asList(parent));
 		this.simpleName = simpleName;
-		children = new TreeMap<>(); //to preserve insertion order
+		children = NO_CHILDREN;
 	}
 
 	public String getSimpleName() {
@@ -74,29 +66,98 @@ public class NameCategory extends LabeledCategory<String> {
 
 	@Override
 	public List<NameCategory> getChildren() {
-		return new ArrayList<>(children.values());
+		return new ArrayList<>(asList(children));
+	}
+	
+	@Override
+	public List<NameCategory> getChildrenView() {
+		return Collections.unmodifiableList(asList(children));
 	}
 	
-	public NameCategory getCategory(String relativeCategoryName) {
+	/**
+	 * Children are found by binary search of their simple names.
+	 */
+	@Override
+	public int indexOfChild(Category child) {
+		if(!(child instanceof NameCategory))
+			return -1;
+		NameCategory[] currentChildren = children;
+		String childName = ((NameCategory) child).simpleName;
+		int index = indexOf(currentChildren, childName, 0, childName.length());
+		return index >= 0 && currentChildren[index] == child ? index : -1;
+	}
+	
+	/**
+	 * The name is walked in place, without splitting it.
+	 * @param relativeCategoryName a name relative to this category, using dots as separator.
+	 * @return the category with the given relative name. Null if it does not exist.
+	 */
+	public NameCategory getCategory(CharSequence relativeCategoryName) {
+		NameCategory indexed = findIndexed(relativeCategoryName);
+		if(indexed != null)
+			return indexed;
 		NameCategory node = this;
-		List<String> packageFragmentsList = asPackageFragmentsList(relativeCategoryName);
-		for(String packageFragment : packageFragmentsList) {
-			node = node.getChild(packageFragment);
-			if(node == null)
-				break;
+		int end = nameEnd(relativeCategoryName);
+		int start = 0;
+		while(node != null && start < end) {
+			int segmentEnd = segmentEnd(relativeCategoryName, start, end);
+			node = node.getChild(relativeCategoryName, start, segmentEnd);
+			start = segmentEnd + 1;
 		}
 		return node;
 	}
 	
+	/**
+	 * @param relativeName a name relative to this category.
+	 * @return the category with the given name in the full name index of the categorization, if this category is the root and the category is indexed. Null otherwise.
+	 */
+	private NameCategory findIndexed(CharSequence relativeName) {
+		if(relativeName instanceof String && isRoot()) //relative names from the root are full names
+			return getCategorization().findIndexed((String) relativeName);
+		return null;
+	}
+	
+	/**
+	 * Trailing separators are ignored, so "a.b." and "a.b" are the same name.
+	 * @param name a name using dots as separator.
+	 * @return the end of the last non-empty segment of the name.
+	 */
+	private static int nameEnd(CharSequence name) {
+		int end = name.length();
+		while(end > 0 && name.charAt(end - 1) == '.') {
+			end--;
+		}
+		return end;
+	}
+	
+	private static int segmentEnd(CharSequence name, int start, int end) {
+		int segmentEnd = start;
+		while(segmentEnd < end && name.charAt(segmentEnd) != '.') {
+			segmentEnd++;
+		}
+		return segmentEnd;
+	}
+	
 	public NameCategory getCategory(Package pakkage) {
 		return getCategory(pakkage.getName());
 	}
 	
-	public NameCategory getOrCreateCategory(String relativeName) {
+	/**
+	 * The name is walked in place, without splitting it. Objects are allocated only for the categories that do not exist yet.
+	 * @param relativeName a name relative to this category, using dots as separator.
+	 * @return the category with the given relative name. It is created, together with its missing ancestors, if it does not exist.
+	 */
+	public NameCategory getOrCreateCategory(CharSequence relativeName) {
+		NameCategory indexed = findIndexed(relativeName);
+		if(indexed != null)
+			return indexed;
 		NameCategory node = this;
-		List<String> packageFragmentsList = asPackageFragmentsList(relativeName);
-		for(String packageFragment : packageFragmentsList) {
-			node = node.getOrCreateChild(packageFragment);
+		int end = nameEnd(relativeName);
+		int start = 0;
+		while(start < end) {
+			int segmentEnd = segmentEnd(relativeName, start, end);
+			node = node.getOrCreateChild(relativeName, start, segmentEnd);
+			start = segmentEnd + 1;
 		}
 		return node;
 	}
@@ -105,30 +166,125 @@ public class NameCategory extends LabeledCategory<String> {
 		return getOrCreateCategory(pakkage.getName());
 	}
 	
-	private NameCategory getChild(String simpleName) {
-		return children.get(simpleName);
+	private NameCategory getChild(CharSequence name, int start, int end) {
+		NameCategory[] currentChildren = children;
+		int index = indexOf(currentChildren, name, start, end);
+		return index >= 0 ? currentChildren[index] : null;
 	}
 
-	private NameCategory getOrCreateChild(String simpleName) {
-		NameCategory child = children.get(simpleName);
+	private NameCategory getOrCreateChild(CharSequence name, int start, int end) {
+		NameCategory child = getChild(name, start, end);
 		if(child == null) {
-			child = addChild(simpleName);
+			NameCategorization categorization = getCategorization();
+			categorization.lockCreation();
+			try {
+				int index = indexOf(children, name, start, end); //the child may have been created while waiting for the lock
+				child = index >= 0 ? children[index] : addChild(name.subSequence(start, end).toString(), -(index + 1));
+			} finally {
+				categorization.releaseCreationLock();
+			}
 		}
 		return child;
 	}
 	
-	private NameCategory addChild(String simpleName) {
+	/**
+	 * Must be called while holding the creation lock of the categorization.
+	 */
+	private NameCategory addChild(String simpleName, int index) {
 		NameCategory child = new NameCategory(simpleName, this);
-		children.put(simpleName, child);
-		getCategorization().notifyCategorizationListeners(child);
+		NameCategorization categorization = getCategorization();
+		categorization.indexCategory(child); //before publishing the child, so lock-free readers never find it unindexed
+		NameCategory[] currentChildren = children;
+		NameCategory[] newChildren = new NameCategory[currentChildren.length + 1];
+		System.arraycopy(currentChildren, 0, newChildren, 0, index);
+		newChildren[index] = child;
+		System.arraycopy(currentChildren, index, newChildren, index + 1, currentChildren.length - index);
+		children = newChildren;
+		categorization.addCategory(child);
 		return child;
 	}
 	
+	/**
+	 * Binary search of a child by simple name.
+	 * @param sortedChildren children sorted by simple name.
+	 * @param name a sequence of characters containing the simple name.
+	 * @param start the start of the simple name in the sequence.
+	 * @param end the end (exclusive) of the simple name in the sequence.
+	 * @return the index of the child with the simple name if found. Otherwise, (-(insertion point) - 1).
+	 */
+	private static int indexOf(NameCategory[] sortedChildren, CharSequence name, int start, int end) {
+		int low = 0;
+		int high = sortedChildren.length - 1;
+		while(low <= high) {
+			int middle = (low + high) >>> 1;
+			int comparison = compare(sortedChildren[middle].simpleName, name, start, end);
+			if(comparison < 0)
+				low = middle + 1;
+			else if(comparison > 0)
+				high = middle - 1;
+			else
+				return middle;
+		}
+		return -(low + 1);
+	}
+	
+	/**
+	 * Compares lexicographically as {@link String#compareTo(String)}.
+	 */
+	private static int compare(String simpleName, CharSequence name, int start, int end) {
+		int length = Math.min(simpleName.length(), end - start);
+		for(int i = 0; i < length; i++) {
+			char c1 = simpleName.charAt(i);
+			char c2 = name.charAt(start + i);
+			if(c1 != c2)
+				return c1 - c2;
+		}
+		return simpleName.length() - (end - start);
+	}
+	
+	NameIntervalIndex.Interval getInterval() {
+		return interval;
+	}
+
+	void setInterval(NameIntervalIndex.Interval interval) {
+		this.interval = interval;
+	}
+	
+	@Override
+	public boolean isDescendantOf(Category category) {
+		NameIntervalIndex intervalIndex = getCategorization().getIntervalIndex();
+		if(intervalIndex != null && category instanceof NameCategory && category.getCategorization() == getCategorization())
+			return intervalIndex.contains((NameCategory) category, this);
+		return super.isDescendantOf(category);
+	}
+	
+	/**
+	 * 
+	 * @return this category and all its descendants. Parents precede their children.
+	 */
+	public List<NameCategory> getSubtreeCategories() {
+		NameIntervalIndex intervalIndex = getCategorization().getIntervalIndex();
+		if(intervalIndex != null)
+			return intervalIndex.subtree(this);
+		return topDownCategories();
+	}
+	
+	/**
+	 * 
+	 * @return the number of categories in the subtree of this category, including itself.
+	 */
+	public int getSubtreeSize() {
+		NameIntervalIndex intervalIndex = getCategorization().getIntervalIndex();
+		if(intervalIndex != null)
+			return intervalIndex.subtreeSize(this);
+		return topDownCategories().size();
+	}
+	
 	public NameCategorization getCategorization() {
 		return (NameCategorization)super.getCategorization();
 	}
 	
-	public List<NameCategory> topDownPath(String relativePackageName) {
+	public List<NameCategory> topDownPath(CharSequence relativePackageName) {
 		Iterable<NameCategory> bottomUpIterable = getOrCreateCategory(relativePackageName).<NameCategory>linearize(
 				TraversalPolicy.bottomUpTraversalPolicy(SearchStrategy.PRE_ORDER, RedundancyCheck.IGNORE));
 		Iterable<NameCategory> filteredBottomUpIterable = new StopUntilConditionIterable(bottomUpIterable, new Predicate<NameCategory>() {
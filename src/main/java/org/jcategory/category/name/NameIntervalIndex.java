@@ -0,0 +1,123 @@
+package org.jcategory.category.name;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jcategory.traversal.OrderMaintenanceList;
+import org.jcategory.traversal.OrderMaintenanceList.Entry;
+
+/**
+ * An interval labeling of a named categorization.
+ * Each category is labeled with an interval nested in the interval of its parent, so subtree containment is answered with two comparisons
+ * and the categories of a subtree are a contiguous range of categories sorted by their interval start.
+ * <p>
+ * The bounds of the intervals are entries of an order-maintenance list: a new category inserts its bounds just before the end of the interval of its parent.
+ * When there is no free label between two bounds, only the smallest enclosing range of labels that is sparse enough is relabeled,
+ * so the amortized number of relabeled bounds per inserted category is logarithmic in the size of the categorization.
+ * </p>
+ */
+class NameIntervalIndex {
+
+	/**
+	 * The labels of a category.
+	 */
+	static class Interval {
+		private final Entry<NameCategory> start; //the bound preceding the bounds of the descendants of the category. Its element is the category.
+		private final Entry<NameCategory> end; //the bound following the bounds of the descendants of the category. Its element is null.
+		private int size; //the number of categories in the subtree of the category, including itself.
+
+		private Interval(Entry<NameCategory> start, Entry<NameCategory> end) {
+			this.start = start;
+			this.end = end;
+			size = 1;
+		}
+	}
+
+	private final OrderMaintenanceList<NameCategory> bounds; //the interval bounds of the labeled categories, in pre-order.
+
+	/**
+	 * @param root the root of the categorization to be labeled.
+	 */
+	NameIntervalIndex(NameCategory root) {
+		bounds = new OrderMaintenanceList<>();
+		label(root);
+	}
+
+	/**
+	 *
+	 * @return the number of times a range of interval bounds was relabeled.
+	 */
+	synchronized long getRelabelings() {
+		return bounds.getRelabelings();
+	}
+
+	/**
+	 *
+	 * @return the number of interval bounds reassigned by all the relabelings.
+	 */
+	synchronized long getRelabeledBounds() {
+		return bounds.getRelabeledEntries();
+	}
+
+	/**
+	 * Labels a new category.
+	 * @param category the new category. Its parent must be already labeled.
+	 */
+	synchronized void insert(NameCategory category) {
+		NameCategory parent = category.getParent();
+		Entry<NameCategory> parentEnd = parent.getInterval().end;
+		Entry<NameCategory> start = bounds.insertBefore(parentEnd, category);
+		Entry<NameCategory> end = bounds.insertBefore(parentEnd, null);
+		category.setInterval(new Interval(start, end));
+		for(NameCategory ancestor = parent; ancestor != null; ancestor = ancestor.getParent()) {
+			ancestor.getInterval().size++;
+		}
+	}
+
+	/**
+	 * @param ancestor a category.
+	 * @param descendant another category.
+	 * @return true if the first category is a strict ancestor of the second one. false otherwise.
+	 */
+	synchronized boolean contains(NameCategory ancestor, NameCategory descendant) {
+		Interval ancestorInterval = ancestor.getInterval();
+		Interval descendantInterval = descendant.getInterval();
+		return ancestorInterval != null && descendantInterval != null &&
+				ancestorInterval.start.precedes(descendantInterval.start) && descendantInterval.start.precedes(ancestorInterval.end);
+	}
+
+	/**
+	 * @param category a category.
+	 * @return the category and all its descendants, in a pre-order.
+	 */
+	synchronized List<NameCategory> subtree(NameCategory category) {
+		Interval interval = category.getInterval();
+		List<NameCategory> categories = new ArrayList<>(interval.size);
+		for(Entry<NameCategory> bound = interval.start; bound != interval.end; bound = bound.getNext()) {
+			if(bound.getElement() != null)
+				categories.add(bound.getElement());
+		}
+		return categories;
+	}
+
+	/**
+	 * @param category a category.
+	 * @return the number of categories in the subtree of the category, including itself.
+	 */
+	synchronized int subtreeSize(NameCategory category) {
+		return category.getInterval().size;
+	}
+
+	private void label(NameCategory category) {
+		Entry<NameCategory> start = bounds.addLast(category);
+		int size = 1;
+		for(NameCategory child : category.getChildren()) {
+			label(child);
+			size += child.getInterval().size;
+		}
+		Interval interval = new Interval(start, bounds.addLast(null));
+		interval.size = size;
+		category.setInterval(interval);
+	}
+
+}
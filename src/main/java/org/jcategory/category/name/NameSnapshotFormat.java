@@ -0,0 +1,31 @@
+package org.jcategory.category.name;
+
+import org.jcategory.category.Categorization;
+import org.jcategory.category.CategorizationListener;
+import org.jcategory.category.SnapshotFormat;
+
+/**
+ * A binary snapshot format for named categorizations. Categories are identified by their full names.
+ */
+public class NameSnapshotFormat extends SnapshotFormat<NameCategory> {
+
+	public NameSnapshotFormat() {
+		super("name");
+	}
+
+	@Override
+	protected String labelOf(NameCategory category) {
+		return category.getLabel();
+	}
+
+	@Override
+	protected NameCategory getOrCreateCategory(Categorization<NameCategory> categorization, String label) {
+		return ((NameCategorization) categorization).getRoot().getOrCreateCategory(label);
+	}
+
+	@Override
+	protected void addCategorizationListener(Categorization<NameCategory> categorization, CategorizationListener<NameCategory> listener) {
+		((NameCategorization) categorization).addCategorizationListener(listener);
+	}
+	
+}
@@ -17,7 +17,7 @@ import com.google.common.collect.Lists;
 public class ClassCategory<T> extends TypeCategory<T> {
 
 	private TypeCategory<?> parentCategory;
-	private List<ClassCategory<? extends T>> knownSubClassNodes;
+	private KnownNodes<ClassCategory<? extends T>> knownSubClassNodes;
 	
 	ClassCategory(TypeCategoryRoot parentCategory) {
 		this((Class<T>) Object.class, parentCategory);
@@ -29,7 +29,7 @@ public class ClassCategory<T> extends TypeCategory<T> {
 	
 	ClassCategory(Class<T> wrappedClass, TypeCategory<?> parentCategory, List<InterfaceCategory<? super T>> superInterfaceNodes) {
 		super(wrappedClass, superInterfaceNodes);
-		knownSubClassNodes = new ArrayList<>();
+		knownSubClassNodes = new KnownNodes<>();
 		this.parentCategory = parentCategory;
 		if(parentCategory instanceof ClassCategory)
 			((ClassCategory)parentCategory).addKnownSubClassNode((ClassCategory<? extends T>) this);
@@ -46,7 +46,7 @@ public class ClassCategory<T> extends TypeCategory<T> {
 	}
 	
 	private void addKnownSubClassNode(ClassCategory<? extends T> subClassNode) {
-		knownSubClassNodes.add(subClassNode);
+		knownSubClassNodes.add(subClassNode, getTypeCategorization().holdsWeakly(subClassNode.getLabel()));
 	}
 	
 	@Override
@@ -58,7 +58,12 @@ public class ClassCategory<T> extends TypeCategory<T> {
 	}
 
 	public List<ClassCategory<? extends T>> getKnownSubClassNodes() {
-		return new ArrayList<>(knownSubClassNodes);
+		return knownSubClassNodes.toList();
+	}
+	
+	@Override
+	void expungeUnloadedNodes() {
+		knownSubClassNodes.expunge();
 	}
 	
 	@Override
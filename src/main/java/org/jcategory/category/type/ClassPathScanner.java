@@ -0,0 +1,122 @@
+package org.jcategory.category.type;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Objects;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+
+/**
+ * Finds the classes in jar files and directories of the local classpath, to be registered at once in a type categorization.
+ * @see TypeCategorization#registerAll(Stream)
+ */
+public class ClassPathScanner {
+
+	private static final String CLASS_FILE_EXTENSION = ".class";
+	
+	private final ClassLoader classLoader; //loads the classes found.
+	private final List<Path> roots; //jar files and directories where classes are searched.
+	
+	/**
+	 * Creates a scanner of the classpath of the current JVM (the java.class.path system property), loading classes with the context class loader of the current thread.
+	 */
+	public ClassPathScanner() {
+		this(Thread.currentThread().getContextClassLoader(), classPathRoots());
+	}
+	
+	/**
+	 * @param classLoader the class loader of the classes found.
+	 * @param roots jar files and directories where classes are searched. Directories must be the root of a package hierarchy.
+	 */
+	public ClassPathScanner(ClassLoader classLoader, List<Path> roots) {
+		this.classLoader = classLoader;
+		this.roots = roots;
+	}
+	
+	private static List<Path> classPathRoots() {
+		List<Path> roots = new ArrayList<>();
+		for(String entry : System.getProperty("java.class.path", "").split(File.pathSeparator)) {
+			if(!entry.isEmpty())
+				roots.add(Paths.get(entry));
+		}
+		return roots;
+	}
+	
+	/**
+	 * @param packagePrefix the prefix of the names of the classes to find (e.g., "org.jcategory."). The empty string matches all classes.
+	 * @return the names of the classes in the roots of this scanner starting with the given prefix.
+	 */
+	public List<String> findClassNames(String packagePrefix) {
+		List<String> classNames = new ArrayList<>();
+		for(Path root : roots) {
+			if(Files.isDirectory(root))
+				addDirectoryClassNames(root, packagePrefix, classNames);
+			else if(Files.isRegularFile(root))
+				addJarClassNames(root, packagePrefix, classNames);
+		}
+		return classNames;
+	}
+	
+	private static void addDirectoryClassNames(Path root, String packagePrefix, List<String> classNames) {
+		try(Stream<Path> files = Files.walk(root)) {
+			files.filter(file -> file.toString().endsWith(CLASS_FILE_EXTENSION))
+				.map(file -> toClassName(root.relativize(file).toString().replace(File.separatorChar, '/')))
+				.filter(className -> isScannable(className, packagePrefix))
+				.forEach(classNames::add);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+	
+	private static void addJarClassNames(Path jar, String packagePrefix, List<String> classNames) {
+		try(JarFile jarFile = new JarFile(jar.toFile())) {
+			Enumeration<JarEntry> entries = jarFile.entries();
+			while(entries.hasMoreElements()) {
+				String entryName = entries.nextElement().getName();
+				if(entryName.endsWith(CLASS_FILE_EXTENSION) && !entryName.startsWith("META-INF/")) {
+					String className = toClassName(entryName);
+					if(isScannable(className, packagePrefix))
+						classNames.add(className);
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+	
+	private static String toClassName(String classFilePath) {
+		return classFilePath.substring(0, classFilePath.length() - CLASS_FILE_EXTENSION.length()).replace('/', '.');
+	}
+	
+	private static boolean isScannable(String className, String packagePrefix) {
+		return className.startsWith(packagePrefix) && !className.endsWith("module-info") && !className.endsWith("package-info");
+	}
+	
+	/**
+	 * Classes are loaded in parallel, without being initialized. Classes that cannot be loaded are skipped.
+	 * @param packagePrefix the prefix of the names of the classes to find (e.g., "org.jcategory."). The empty string matches all classes.
+	 * @return the classes in the roots of this scanner whose names start with the given prefix.
+	 */
+	public Stream<Class<?>> scan(String packagePrefix) {
+		return findClassNames(packagePrefix).parallelStream()
+				.map(this::load)
+				.filter(Objects::nonNull);
+	}
+	
+	private Class<?> load(String className) {
+		try {
+			return Class.forName(className, false, classLoader);
+		} catch (ClassNotFoundException | LinkageError e) {
+			return null; //e.g., a class depending on a class not available in the classpath
+		}
+	}
+	
+}
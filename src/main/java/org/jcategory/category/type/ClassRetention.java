@@ -0,0 +1,19 @@
+package org.jcategory.category.type;
+
+/**
+ * Determines how a type categorization holds the categories of classes loaded by class loaders other than the system ones.
+ * System class loaders are the system class loader, the class loader of this library and all their ancestors.
+ *
+ */
+public enum ClassRetention {
+	/**
+	 * All categories are strongly referenced. A categorized class (and its class loader) is never unloaded while the categorization is reachable.
+	 */
+	STRONG,
+
+	/**
+	 * Categories of classes loaded by non-system class loaders are only weakly referenced by the categorization and by the categories of their supertypes.
+	 * Such categories are partitioned per class loader. Once a class loader becomes unreachable, its partition is purged in bulk.
+	 */
+	WEAK
+}
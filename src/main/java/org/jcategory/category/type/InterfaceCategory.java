@@ -2,7 +2,6 @@ package org.jcategory.category.type;
 
 import static java.util.Arrays.asList;
 
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
@@ -16,8 +15,8 @@ import com.google.common.collect.Lists;
  */
 public class InterfaceCategory<T> extends TypeCategory<T> {
 
-	private List<ClassCategory<? extends T>> knownImplementorNodes;
-	private List<InterfaceCategory<? extends T>> knownSubInterfaceNodes;
+	private KnownNodes<ClassCategory<? extends T>> knownImplementorNodes;
+	private KnownNodes<InterfaceCategory<? extends T>> knownSubInterfaceNodes;
 	private TypeCategoryRoot defaultParentCategory; //the parent category of this interface in case it does not have super interfaces.
 	
 	InterfaceCategory(Class<T> interfaze, TypeCategoryRoot parentCategory) {
@@ -27,16 +26,16 @@ public class InterfaceCategory<T> extends TypeCategory<T> {
 	
 	InterfaceCategory(Class<T> wrappedInterface, List<InterfaceCategory<? super T>> superInterfaceNodes) {
 		super(wrappedInterface, superInterfaceNodes);
-		knownImplementorNodes = new ArrayList<>();
-		knownSubInterfaceNodes = new ArrayList<>();
+		knownImplementorNodes = new KnownNodes<>();
+		knownSubInterfaceNodes = new KnownNodes<>();
 	}	
 	
 	void addKnownImplementorNode(ClassCategory<? extends T> implementorNode) {
-		knownImplementorNodes.add(implementorNode);
+		knownImplementorNodes.add(implementorNode, getTypeCategorization().holdsWeakly(implementorNode.getLabel()));
 	}
 	
 	void addKnownSubInterfaceNode(InterfaceCategory<? extends T> subInterfaceNode) {
-		knownSubInterfaceNodes.add(subInterfaceNode);
+		knownSubInterfaceNodes.add(subInterfaceNode, getTypeCategorization().holdsWeakly(subInterfaceNode.getLabel()));
 	}
 	
 	@Override
@@ -48,11 +47,17 @@ public class InterfaceCategory<T> extends TypeCategory<T> {
 	}
 	
 	public List<ClassCategory<? extends T>> getKnownImplementorNodes() {
-		return new ArrayList<>(knownImplementorNodes);
+		return knownImplementorNodes.toList();
 	}
 	
 	public List<InterfaceCategory<? extends T>> getKnownSubInterfaceNodes() {
-		return new ArrayList<>(knownSubInterfaceNodes);
+		return knownSubInterfaceNodes.toList();
+	}
+	
+	@Override
+	void expungeUnloadedNodes() {
+		knownImplementorNodes.expunge();
+		knownSubInterfaceNodes.expunge();
 	}
 
 	@Override
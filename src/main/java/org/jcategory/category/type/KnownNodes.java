@@ -0,0 +1,52 @@
+package org.jcategory.category.type;
+
+import java.lang.ref.Reference;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The known subtypes of a type category, in the order they were added.
+ * Nodes may be referenced either strongly or weakly. Weakly referenced nodes do not prevent their classes (and class loaders) from being unloaded.
+ * Access is synchronized, since nodes may be read while a new one is added.
+ *
+ * @param <T> the type of the nodes.
+ */
+class KnownNodes<T extends TypeCategory<?>> {
+
+	private final List<Object> nodes = new ArrayList<>(); //nodes, or weak references to nodes.
+
+	/**
+	 * @param node the node to add.
+	 * @param weak true if the node should be weakly referenced. false otherwise.
+	 */
+	synchronized void add(T node, boolean weak) {
+		nodes.add(weak ? new WeakReference<>(node) : node);
+	}
+
+	/**
+	 *
+	 * @return a new list with the nodes that have not been reclaimed by the garbage collector.
+	 */
+	synchronized List<T> toList() {
+		List<T> list = new ArrayList<>(nodes.size());
+		for(Object node : nodes) {
+			if(node instanceof Reference)
+				node = ((Reference<?>) node).get();
+			if(node != null)
+				list.add((T) node);
+		}
+		return list;
+	}
+
+	/**
+	 * Removes the weak references whose nodes have been reclaimed by the garbage collector.
+	 * @return the number of removed references.
+	 */
+	synchronized int expunge() {
+		int size = nodes.size();
+		nodes.removeIf(node -> node instanceof Reference && ((Reference<?>) node).get() == null);
+		return size - nodes.size();
+	}
+
+}
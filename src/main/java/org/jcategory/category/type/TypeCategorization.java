@@ -1,11 +1,21 @@
 package org.jcategory.category.type;
 
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.jcategory.category.Categorization;
 import org.jcategory.category.CategorizationListener;
@@ -15,11 +25,60 @@ import org.jcategory.traversal.RedundancyCheck;
 import org.jcategory.traversal.SearchStrategy;
 import org.jcategory.traversal.TraversalPolicy;
 
+/**
+ * A categorization of classes and interfaces.
+ * <p>
+ * Type categories can be queried and created concurrently. Look-ups of existing categories do not block.
+ * Categories are created one at a time while holding a creation lock, which is reentrant so the categories of superclasses and interfaces can be recursively created.
+ * Listeners are notified of each new category exactly once, after the creation lock has been released and in the order categories were created.
+ * </p>
+ * <p>
+ * With {@link ClassRetention#WEAK} retention, the categorization does not prevent classes loaded by non-system class loaders from being unloaded.
+ * Their categories are partitioned per class loader, and the partitions of unloaded class loaders are purged in bulk the next time a category is created (or by {@link #purgeUnloadedClassLoaders()}).
+ * </p>
+ * @author sergioc
+ *
+ */
 public class TypeCategorization extends Categorization<TypeCategory<?>> {
 
-	private final Map<Class<?>, TypeCategory<?>> categoryIndex;	
-	private TypeCategoryRoot typeCategoryRoot;
+	private static final Set<ClassLoader> SYSTEM_CLASS_LOADERS = systemClassLoaders(); //class loaders whose classes are always held strongly.
+	
+	private volatile TypeCategoryIndex categoryIndex; //read without locking.
+	private volatile TypeCategoryIndexing indexing; //how categories are indexed by class.
+	private volatile ClassRetention classRetention; //how categories of classes loaded by non-system class loaders are held.
+	private volatile TypeCategoryRoot typeCategoryRoot;
 	private final CategorizationListenersManager listenersManager; //category listeners notified when a new category is created.
+	private final ReentrantLock creationLock; //held while categories are created.
+	private final List<TypeCategory<?>> pendingNotifications; //categories created while holding the creation lock, not yet notified to the listeners.
+	private final Map<List<Class<?>>, BoundedTypes> boundedTypesCache; //bounded types by list of upper bounds. Cleared when a new type is registered.
+	private final Map<ClassLoader, LoaderPartition> loaderPartitions; //partitions of the weakly held categories, by class loader. Guarded by the creation lock.
+	private final ReferenceQueue<ClassLoader> unloadedClassLoaders; //enqueues the partitions whose class loader has been reclaimed by the garbage collector.
+	
+	/**
+	 * The types found for a list of upper bounds at a given version of the categorization.
+	 */
+	private static class BoundedTypes {
+		private final long structureVersion;
+		private final List<TypeCategory<?>> categories;
+		
+		private BoundedTypes(long structureVersion, List<TypeCategory<?>> categories) {
+			this.structureVersion = structureVersion;
+			this.categories = categories;
+		}
+	}
+	
+	/**
+	 * The categories of the classes loaded by a class loader held weakly. The partition does not reference its categories nor its class loader.
+	 * It only keeps the parents of its categories located in other partitions, so they can be unlinked from the categories of the partition once its class loader has been unloaded.
+	 */
+	private static class LoaderPartition extends WeakReference<ClassLoader> {
+		private final Set<TypeCategory<?>> externalParents; //parents, loaded by other class loaders, of categories in this partition.
+		
+		private LoaderPartition(ClassLoader classLoader, ReferenceQueue<ClassLoader> queue) {
+			super(classLoader, queue);
+			externalParents = Collections.newSetFromMap(new IdentityHashMap<>());
+		}
+	}
 	
 	public TypeCategorization(Function<TypeCategory<?>, List<TypeCategory<?>>> bottomUpLinearizationFunction, 
 			Function<TypeCategory<?>, List<TypeCategory<?>>> topDownLinearizationFunction) {
@@ -30,38 +89,305 @@ public class TypeCategorization extends Categorization<TypeCategory<?>> {
 			Function<TypeCategory<?>, List<TypeCategory<?>>> topDownLinearization,
 			List<? extends CategorizationListener<TypeCategory<?>>> categorizationListeners) {
 		super((Function)bottomUpLinearization, (Function)topDownLinearization);
-		categoryIndex = new HashMap<>();
+		indexing = TypeCategoryIndexing.HASH_MAP;
+		classRetention = ClassRetention.STRONG;
+		categoryIndex = newIndex(indexing, classRetention);
 		listenersManager = new CategorizationListenersManager((List)categorizationListeners);
+		creationLock = new ReentrantLock();
+		pendingNotifications = new ArrayList<>();
+		boundedTypesCache = new ConcurrentHashMap<>();
+		loaderPartitions = new WeakHashMap<>();
+		unloadedClassLoaders = new ReferenceQueue<>();
+	}
+	
+	private static Set<ClassLoader> systemClassLoaders() {
+		Set<ClassLoader> classLoaders = Collections.newSetFromMap(new IdentityHashMap<>());
+		for(ClassLoader classLoader : new ClassLoader[] {ClassLoader.getSystemClassLoader(), TypeCategorization.class.getClassLoader()}) {
+			for(; classLoader != null; classLoader = classLoader.getParent()) {
+				classLoaders.add(classLoader);
+			}
+		}
+		return classLoaders;
+	}
+	
+	/**
+	 * @param clazz a class.
+	 * @return true if the given class was loaded by the bootstrap class loader or by a system class loader (see {@link ClassRetention}). false otherwise.
+	 */
+	static boolean isSystemClass(Class<?> clazz) {
+		ClassLoader classLoader = clazz.getClassLoader();
+		return classLoader == null || SYSTEM_CLASS_LOADERS.contains(classLoader);
+	}
+	
+	/**
+	 * @param clazz a class.
+	 * @return true if the category of the given class should be weakly referenced by this categorization and by the categories of its supertypes. false otherwise.
+	 */
+	boolean holdsWeakly(Class<?> clazz) {
+		return classRetention.equals(ClassRetention.WEAK) && !isSystemClass(clazz);
+	}
+	
+	private static TypeCategoryIndex newIndex(TypeCategoryIndexing indexing, ClassRetention classRetention) {
+		TypeCategoryIndex index = indexing.newIndex();
+		if(classRetention.equals(ClassRetention.WEAK))
+			index = new TypeCategoryIndex.WeakLoaderIndex(index);
+		return index;
 	}
 	
 	public TypeCategoryRoot getRoot() {
-		if(typeCategoryRoot == null) {
-			typeCategoryRoot = new TypeCategoryRoot(this);
-			notifyCategorizationListeners(typeCategoryRoot);
+		TypeCategoryRoot root = typeCategoryRoot;
+		if(root == null) {
+			creationLock.lock();
+			try {
+				root = typeCategoryRoot;
+				if(root == null) {
+					root = new TypeCategoryRoot(this);
+					typeCategoryRoot = root;
+					pendingNotifications.add(root);
+				}
+			} finally {
+				releaseCreationLock();
+			}
 		}
-		return typeCategoryRoot;
+		return root;
 	}
 
+	/**
+	 * 
+	 * @return how categories are indexed by class.
+	 */
+	public TypeCategoryIndexing getIndexing() {
+		return indexing;
+	}
+	
+	/**
+	 * Changes how categories are indexed by class. Existing categories are moved to the new index.
+	 * @param indexing how categories should be indexed by class.
+	 */
+	public void setIndexing(TypeCategoryIndexing indexing) {
+		creationLock.lock();
+		try {
+			if(!indexing.equals(this.indexing)) {
+				reindex(indexing, classRetention);
+				this.indexing = indexing;
+			}
+		} finally {
+			releaseCreationLock();
+		}
+	}
+	
+	/**
+	 * 
+	 * @return how categories of classes loaded by non-system class loaders are held.
+	 */
+	public ClassRetention getClassRetention() {
+		return classRetention;
+	}
+	
+	/**
+	 * Changes how categories of classes loaded by non-system class loaders are held. Existing categories are moved to a new index.
+	 * Links from supertypes to subtypes already categorized keep their previous strength, so the retention should be set before categorizing classes of other class loaders.
+	 * @param classRetention how categories of classes loaded by non-system class loaders should be held.
+	 */
+	public void setClassRetention(ClassRetention classRetention) {
+		creationLock.lock();
+		try {
+			if(!classRetention.equals(this.classRetention)) {
+				reindex(indexing, classRetention);
+				this.classRetention = classRetention;
+				boundedTypesCache.clear();
+			}
+		} finally {
+			releaseCreationLock();
+		}
+	}
+	
+	private void reindex(TypeCategoryIndexing indexing, ClassRetention classRetention) {
+		TypeCategoryIndex newIndex = newIndex(indexing, classRetention);
+		TypeCategoryRoot root = typeCategoryRoot;
+		if(root != null) {
+			List<TypeCategory<?>> categories = root.linearize(TraversalPolicy.topDownTraversalPolicy(SearchStrategy.BREADTH_FIRST, RedundancyCheck.KEEP_FIRST));
+			for(TypeCategory<?> category : categories) {
+				if(category != root)
+					newIndex.put(category.getLabel(), category);
+			}
+		}
+		categoryIndex = newIndex;
+	}
+	
+	@Override
+	protected boolean retainsTopDownLinearizations() {
+		return classRetention.equals(ClassRetention.STRONG);
+	}
+	
 	public <T> TypeCategory<T> getTypeCategory(Class<T> clazz) {
-		return (TypeCategory<T>) categoryIndex.get(clazz);
+		return categoryIndex.get(clazz);
 	}
 	
 	private <T> void putTypeCategory(Class<T> clazz, TypeCategory<T> node) {
 		categoryIndex.put(clazz, node);
-		notifyCategorizationListeners(node);
+		if(holdsWeakly(clazz))
+			addToLoaderPartition(node);
+		onCategoryAdded(node);
+		if(!boundedTypesCache.isEmpty())
+			boundedTypesCache.clear(); //the cached results are stale
+		pendingNotifications.add(node);
+	}
+	
+	private void addToLoaderPartition(TypeCategory<?> node) {
+		ClassLoader classLoader = node.getLabel().getClassLoader();
+		LoaderPartition partition = loaderPartitions.get(classLoader);
+		if(partition == null) {
+			partition = new LoaderPartition(classLoader, unloadedClassLoaders);
+			loaderPartitions.put(classLoader, partition);
+		}
+		for(TypeCategory<?> parent : node.<TypeCategory<?>>getParents()) {
+			if(parent.getLabel().getClassLoader() != classLoader)
+				partition.externalParents.add(parent);
+		}
+	}
+	
+	/**
+	 * Purges the partitions of the class loaders reclaimed by the garbage collector.
+	 * Their categories are unlinked from their supertypes and the cached linearizations of such supertypes (and their ancestors) are discarded.
+	 * This happens anyway the next time a category is created.
+	 * @return the number of purged class loader partitions.
+	 */
+	public int purgeUnloadedClassLoaders() {
+		creationLock.lock();
+		try {
+			return expungeUnloadedClassLoaders();
+		} finally {
+			releaseCreationLock();
+		}
+	}
+	
+	/**
+	 * 
+	 * @return the number of class loaders whose categories are held weakly and have not been reclaimed yet.
+	 */
+	public int getClassLoaderPartitionCount() {
+		creationLock.lock();
+		try {
+			return loaderPartitions.size();
+		} finally {
+			releaseCreationLock();
+		}
+	}
+	
+	private int expungeUnloadedClassLoaders() {
+		Set<TypeCategory<?>> formerParents = Collections.newSetFromMap(new IdentityHashMap<>());
+		int purgedPartitions = 0;
+		Reference<? extends ClassLoader> partition;
+		while((partition = unloadedClassLoaders.poll()) != null) {
+			formerParents.addAll(((LoaderPartition) partition).externalParents);
+			purgedPartitions++;
+		}
+		if(purgedPartitions > 0) {
+			for(TypeCategory<?> formerParent : formerParents) {
+				formerParent.expungeUnloadedNodes();
+			}
+			boundedTypesCache.clear();
+			onCategoriesRemoved(formerParents);
+		}
+		return purgedPartitions;
 	}
 
 	public <T> TypeCategory<T> getOrCreateTypeCategory(Class<T> clazz) {
 		TypeCategory<T> node = getTypeCategory(clazz);
 		if(node == null) {
-			if(clazz.isInterface())
-				node = createInterfaceCategory(clazz);
-			else
-				node = createClassCategory(clazz);
+			creationLock.lock();
+			try {
+				node = getTypeCategory(clazz); //the category may have been created while waiting for the lock
+				if(node == null) {
+					expungeUnloadedClassLoaders();
+					if(clazz.isInterface())
+						node = createInterfaceCategory(clazz);
+					else
+						node = createClassCategory(clazz);
+				}
+			} finally {
+				releaseCreationLock();
+			}
 		}
 		return node;
 	}
 	
+	/**
+	 * Registers many types at once, so the categorization can be warmed up in a single pass.
+	 * The supertypes of the given types are collected in parallel, and categories are created in a supertype-first order while holding the creation lock once.
+	 * Listeners are notified of all the new categories in a single batch. Finally, the bottom-up linearizations of the new categories are computed in parallel.
+	 * @param classes the types to register. Primitive types are ignored.
+	 * @return the categories of the given types.
+	 */
+	public List<TypeCategory<?>> registerAll(Stream<Class<?>> classes) {
+		Map<Class<?>, Integer> depths = new ConcurrentHashMap<>(); //the types to register, with the length of their longest path to the root.
+		List<Class<?>> requestedClasses = classes.parallel()
+				.filter(clazz -> !clazz.isPrimitive())
+				.map(clazz -> {
+					supertypeDepth(clazz, depths);
+					return clazz;
+				})
+				.collect(Collectors.toList());
+		List<Class<?>> supertypeFirstClasses = new ArrayList<>(depths.keySet());
+		supertypeFirstClasses.sort(Comparator.<Class<?>>comparingInt(depths::get).thenComparing(Class::getName));
+		List<TypeCategory<?>> newCategories = new ArrayList<>();
+		creationLock.lock();
+		try {
+			for(Class<?> clazz : supertypeFirstClasses) {
+				if(getTypeCategory(clazz) == null)
+					newCategories.add(getOrCreateTypeCategory(clazz)); //its supertypes already exist
+			}
+		} finally {
+			releaseCreationLock();
+		}
+		newCategories.parallelStream().forEach(TypeCategory::bottomUpCategories);
+		List<TypeCategory<?>> categories = new ArrayList<>();
+		for(Class<?> clazz : requestedClasses) {
+			categories.add(getTypeCategory(clazz));
+		}
+		return categories;
+	}
+	
+	/**
+	 * @param clazz a type.
+	 * @param depths the depths of the types already visited. The given type and its supertypes are added to it.
+	 * @return the length of the longest path from the given type to the root, through its supertypes.
+	 */
+	private static int supertypeDepth(Class<?> clazz, Map<Class<?>, Integer> depths) {
+		Integer depth = depths.get(clazz);
+		if(depth == null) {
+			int maxSupertypeDepth = 0;
+			if(clazz.getSuperclass() != null)
+				maxSupertypeDepth = supertypeDepth(clazz.getSuperclass(), depths);
+			for(Class<?> superInterface : clazz.getInterfaces()) {
+				maxSupertypeDepth = Math.max(maxSupertypeDepth, supertypeDepth(superInterface, depths));
+			}
+			depth = maxSupertypeDepth + 1;
+			depths.putIfAbsent(clazz, depth);
+		}
+		return depth;
+	}
+	
+	/**
+	 * Releases the creation lock. If it is not held anymore by the current thread, the listeners are notified of the categories created in the meantime.
+	 * Asynchronous notifications are queued while still holding the lock.
+	 */
+	private void releaseCreationLock() {
+		List<TypeCategory<?>> newCategories = Collections.emptyList();
+		if(creationLock.getHoldCount() == 1 && !pendingNotifications.isEmpty()) {
+			newCategories = new ArrayList<>(pendingNotifications);
+			pendingNotifications.clear();
+		}
+		Runnable notification;
+		try {
+			notification = listenersManager.handOver(newCategories); //queued before releasing the lock, so batches are queued in creation order
+		} finally {
+			creationLock.unlock();
+		}
+		notification.run();
+	}
+	
 	private <T> ClassCategory<T> createClassCategory(Class<T> clazz) {
 		ClassCategory classCategory;
 		if(Object.class.equals(clazz)) {
@@ -98,45 +424,97 @@ public class TypeCategorization extends Categorization<TypeCategory<?>> {
 
 	
 	/**
+	 * 
+	 * @return the number of lists of upper bounds whose bounded types are cached.
+	 */
+	int getCachedBoundedTypesCount() {
+		return boundedTypesCache.size();
+	}
+	
+	/**
+	 * The descendants of the bounds are intersected starting from the bound with fewer descendants, testing membership in the other bounds with precomputed ancestor sets.
+	 * Results are cached per list of bounds until a new type is registered, unless categories are held weakly (see {@link ClassRetention#WEAK}).
 	 * @param upperBounds a list of upper bounds.
 	 * @return a list with type categories that are descendant of all the upper bounds (at the same time) passed by as arguments.
+	 * They are in the top-down order of the descendants of the bound with fewer descendants, which may differ from the top-down order of the first bound.
 	 */
 	public <T extends TypeCategory> List<T> findBoundedTypes(List<Class<?>> upperBounds) {
 		if(upperBounds.isEmpty())
 			throw new RuntimeException("Empty bounds for quantified property.");
-		List<T> boundedTypes = new ArrayList<>();
-		TypeCategory typeCategory = getOrCreateTypeCategory(upperBounds.get(0));
-		List<TypeCategory<Class<?>>> topDownCategories = typeCategory.linearize(TraversalPolicy.topDownTraversalPolicy(SearchStrategy.BREADTH_FIRST, RedundancyCheck.KEEP_FIRST));
-		List<Class<?>> allButFirstBound = upperBounds.subList(1, upperBounds.size());
-		for(TypeCategory<Class<?>> candidateCategory : topDownCategories) {
-			if(candidateCategory.isInBoundaries(allButFirstBound)) {
-				boundedTypes.add((T) candidateCategory);
+		TypeCategory<?> firstBoundCategory = getOrCreateTypeCategory(upperBounds.get(0));
+		long structureVersion = getStructureVersion();
+		BoundedTypes boundedTypes = boundedTypesCache.get(upperBounds);
+		if(boundedTypes == null || boundedTypes.structureVersion != structureVersion) {
+			boundedTypes = new BoundedTypes(structureVersion, intersectBounds(firstBoundCategory, upperBounds.subList(1, upperBounds.size())));
+			if(classRetention.equals(ClassRetention.STRONG) && structureVersion == getStructureVersion()) //cached results would prevent weakly held categories from being reclaimed. Results already stale are not cached, since they would not be evicted.
+				boundedTypesCache.put(new ArrayList<>(upperBounds), boundedTypes);
+		}
+		return new ArrayList(boundedTypes.categories);
+	}
+	
+	private List<TypeCategory<?>> intersectBounds(TypeCategory<?> firstBoundCategory, List<Class<?>> otherBounds) {
+		List<TypeCategory<?>> boundCategories = new ArrayList<>();
+		boundCategories.add(firstBoundCategory);
+		List<Class<?>> uncategorizedBounds = new ArrayList<>(); //bounds not expressible as membership in the descendants of a category.
+		for(Class<?> upperBound : otherBounds) {
+			if(upperBound.equals(Object.class) || upperBound.isArray()) { //interfaces are not descendants of the Object category and array covariance is not modeled
+				uncategorizedBounds.add(upperBound);
+			} else {
+				TypeCategory<?> boundCategory = getTypeCategory(upperBound);
+				if(boundCategory == null) //the supertypes of registered types are always registered
+					return new ArrayList<>();
+				boundCategories.add(boundCategory);
 			}
 		}
-		return boundedTypes;
+		List<TypeCategory<?>> candidates = null;
+		for(TypeCategory<?> boundCategory : boundCategories) {
+			List<TypeCategory<?>> descendants = boundCategory.topDownCategories(); //cached until a new type is added below the bound
+			if(candidates == null || descendants.size() < candidates.size())
+				candidates = descendants;
+		}
+		List<TypeCategory<?>> boundedCategories = new ArrayList<>();
+		for(TypeCategory<?> candidate : candidates) {
+			if(isBounded(candidate, boundCategories) && candidate.isInBoundaries(uncategorizedBounds))
+				boundedCategories.add(candidate);
+		}
+		return boundedCategories;
+	}
+	
+	private static boolean isBounded(TypeCategory<?> candidate, List<TypeCategory<?>> boundCategories) {
+		for(TypeCategory<?> boundCategory : boundCategories) {
+			if(candidate != boundCategory && !candidate.isDescendantOf(boundCategory))
+				return false;
+		}
+		return true;
 	}
 	
 	/**
-	 * Sets a property to all the type categories quantified by the given upper bounds.
+	 * Sets a property to all the type categories quantified by the given upper bounds, in a single update.
 	 * @param upperBounds a list of upper bounds.
 	 * @param key the key of the property.
 	 * @param value the value of the property.
 	 */
 	public void setQuantified(List<Class<?>> upperBounds, Key key, Object value) {
-		for(TypeCategory<Class<?>> boundedCategory : findBoundedTypes(upperBounds)) {
-			boundedCategory.setProperty(key, value);
-		}
+		List<TypeCategory<Class<?>>> boundedCategories = findBoundedTypes(upperBounds);
+		atomically(() -> {
+			for(TypeCategory<Class<?>> boundedCategory : boundedCategories) {
+				boundedCategory.setProperty(key, value);
+			}
+		});
 	}
 	
 	/**
-	 * Removes a property from all the type categories quantified by the given upper bounds.
+	 * Removes a property from all the type categories quantified by the given upper bounds, in a single update.
 	 * @param upperBounds a list of upper bounds.
 	 * @param key the key of the property.
 	 */
 	public void removeQuantified(List<Class<?>> upperBounds, Key key) {
-		for(TypeCategory<Class<?>> boundedCategory : findBoundedTypes(upperBounds)) {
-			boundedCategory.removeLocalProperty(key);
-		}
+		List<TypeCategory<Class<?>>> boundedCategories = findBoundedTypes(upperBounds);
+		atomically(() -> {
+			for(TypeCategory<Class<?>> boundedCategory : boundedCategories) {
+				boundedCategory.removeLocalProperty(key);
+			}
+		});
 	}
 	
 	protected void notifyCategorizationListeners(TypeCategory<?> newCategory) {
@@ -151,4 +529,12 @@ public class TypeCategorization extends Categorization<TypeCategory<?>> {
 		listenersManager.remove(creationListener);
 	}
 	
+	/**
+	 * 
+	 * @return the manager of the listeners of this categorization. It determines how notifications are delivered.
+	 */
+	public CategorizationListenersManager getListenersManager() {
+		return listenersManager;
+	}
+	
 }
@@ -116,14 +116,23 @@ public abstract class TypeCategory<T> extends LabeledCategory<Class<T>> {
 	 * @return true if the wrapped class is a descendant of all the upper bounds (at the same time) passed by as arguments. false otherwise.
 	 */
 	public boolean isInBoundaries(List<Class<?>> upperBounds) {
-		Class labelClass = getLabel();
-		for(Class upperBoundClass : upperBounds) {
-			if(!upperBoundClass.isAssignableFrom(labelClass))
+		for(Class<?> upperBoundClass : upperBounds) {
+			if(!isInBoundary(upperBoundClass))
 				return false;
 		}
 		return true;
 	}
 	
+	private boolean isInBoundary(Class<?> upperBoundClass) {
+		Class<?> labelClass = getLabel();
+		if(upperBoundClass.equals(labelClass) || upperBoundClass.equals(Object.class)) //interfaces are not descendants of the Object category
+			return true;
+		TypeCategory<?> upperBoundCategory = getTypeCategorization().getTypeCategory(upperBoundClass);
+		if(upperBoundCategory == null || labelClass.isArray() || upperBoundClass.isArray()) //array covariance is not modeled by the categorization
+			return upperBoundClass.isAssignableFrom(labelClass);
+		return isDescendantOf(upperBoundCategory);
+	}
+	
 	/**
 	 * 
 	 * @param priority if classes should be visited before interfaces or vice versa.
@@ -139,4 +148,10 @@ public abstract class TypeCategory<T> extends LabeledCategory<Class<T>> {
 	 */
 	protected abstract <U extends TypeCategory<? extends T>> List<U> getChildren(Priority priority);
 
+	/**
+	 * Removes the references to children that have been reclaimed by the garbage collector after their classes were unloaded.
+	 */
+	void expungeUnloadedNodes() {
+	}
+	
 }
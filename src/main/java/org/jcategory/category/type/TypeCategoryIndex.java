@@ -0,0 +1,126 @@
+package org.jcategory.category.type;
+
+import java.lang.ref.Reference;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps classes to their categories in a type categorization.
+ * Look-ups may happen concurrently with insertions. Insertions are serialized by the categorization.
+ *
+ */
+abstract class TypeCategoryIndex {
+
+	/**
+	 * @param clazz a class.
+	 * @return the category of the given class. null if the class has not been categorized.
+	 */
+	abstract <T> TypeCategory<T> get(Class<T> clazz);
+	
+	/**
+	 * @param clazz a class.
+	 * @param category the category of the given class.
+	 */
+	abstract void put(Class<?> clazz, TypeCategory<?> category);
+	
+	
+	static class MapIndex extends TypeCategoryIndex {
+
+		private final Map<Class<?>, TypeCategory<?>> categories = new ConcurrentHashMap<>();
+		
+		@Override
+		<T> TypeCategory<T> get(Class<T> clazz) {
+			return (TypeCategory<T>) categories.get(clazz);
+		}
+
+		@Override
+		void put(Class<?> clazz, TypeCategory<?> category) {
+			categories.put(clazz, category);
+		}
+	}
+	
+	
+	static class ClassValueIndex extends TypeCategoryIndex {
+
+		/**
+		 * A holder attached to a class, so the category can be set after the class has been queried.
+		 * Unless categories are attached to their classes, the holder references the category weakly: 
+		 * a value of a class value must not reach the class value, otherwise the class keeps alive the value, the categorization and the class value itself.
+		 */
+		private static class CategoryHolder {
+			private volatile Object category; //the category, or a weak reference to the category.
+			
+			TypeCategory<?> get() {
+				Object currentCategory = category;
+				if(currentCategory instanceof Reference)
+					currentCategory = ((Reference<?>) currentCategory).get();
+				return (TypeCategory<?>) currentCategory;
+			}
+		}
+		
+		private final ClassValue<CategoryHolder> holders = new ClassValue<CategoryHolder>() {
+			@Override
+			protected CategoryHolder computeValue(Class<?> clazz) {
+				return new CategoryHolder();
+			}
+		};
+		private final boolean attachesCategories; //true if categories are strongly referenced by their classes.
+		private final List<TypeCategory<?>> categories = new ArrayList<>(); //the categories weakly referenced by their classes, retained by this index.
+		
+		/**
+		 * @param attachesCategories true if categories should be strongly referenced by their classes, so they live as long as their classes (and then the categorization does). 
+		 * false if categories should be retained by this index.
+		 */
+		ClassValueIndex(boolean attachesCategories) {
+			this.attachesCategories = attachesCategories;
+		}
+		
+		@Override
+		<T> TypeCategory<T> get(Class<T> clazz) {
+			return (TypeCategory<T>) holders.get(clazz).get();
+		}
+
+		@Override
+		void put(Class<?> clazz, TypeCategory<?> category) {
+			if(attachesCategories) {
+				holders.get(clazz).category = category;
+			} else {
+				categories.add(category);
+				holders.get(clazz).category = new WeakReference<>(category);
+			}
+		}
+	}
+	
+	
+	/**
+	 * Keeps the categories of system classes in a given index, and attaches the categories of other classes to their classes.
+	 * Then the index does not prevent classes loaded by non-system class loaders from being unloaded.
+	 * The system index should not attach categories to their classes, otherwise system classes would keep the categorization alive.
+	 */
+	static class WeakLoaderIndex extends TypeCategoryIndex {
+		
+		private final TypeCategoryIndex systemIndex; //the index of the categories of system classes.
+		private final ClassValueIndex loaderIndex = new ClassValueIndex(true); //the index of the categories of other classes.
+		
+		WeakLoaderIndex(TypeCategoryIndex systemIndex) {
+			this.systemIndex = systemIndex;
+		}
+		
+		@Override
+		<T> TypeCategory<T> get(Class<T> clazz) {
+			return TypeCategorization.isSystemClass(clazz) ? systemIndex.get(clazz) : loaderIndex.get(clazz);
+		}
+
+		@Override
+		void put(Class<?> clazz, TypeCategory<?> category) {
+			if(TypeCategorization.isSystemClass(clazz))
+				systemIndex.put(clazz, category);
+			else
+				loaderIndex.put(clazz, category);
+		}
+	}
+	
+}
@@ -0,0 +1,30 @@
+package org.jcategory.category.type;
+
+/**
+ * Determines how a type categorization finds the category of a given class.
+ *
+ */
+public enum TypeCategoryIndexing {
+	/**
+	 * Categories are indexed in a concurrent hash map keyed by class.
+	 */
+	HASH_MAP {
+		@Override
+		TypeCategoryIndex newIndex() {
+			return new TypeCategoryIndex.MapIndex();
+		}
+	}, 
+	
+	/**
+	 * Categories are attached to their classes by means of a {@link ClassValue}.
+	 * Look-ups do not hash nor contend. Classes reference their categories weakly, so a class does not keep alive the categorization.
+	 */
+	CLASS_VALUE {
+		@Override
+		TypeCategoryIndex newIndex() {
+			return new TypeCategoryIndex.ClassValueIndex(false);
+		}
+	};
+	
+	abstract TypeCategoryIndex newIndex();
+}
@@ -15,27 +15,34 @@ public class TypeCategoryRoot extends TypeCategory<Any> {
 
 	static class Any {}
 	
-	private ClassCategory<Object> objectClassNode;
-	private final List<InterfaceCategory<?>> rootInterfaceNodes;
+	private volatile ClassCategory<Object> objectClassNode;
+	private final KnownNodes<InterfaceCategory<?>> rootInterfaceNodes;
 	
 	TypeCategoryRoot(TypeCategorization typeCategorization) {
 		super(typeCategorization, Any.class);
-		rootInterfaceNodes = new ArrayList<>();
+		rootInterfaceNodes = new KnownNodes<>();
 	}
 
 	void addRootInterfaceNode(InterfaceCategory<?> rootInterfaceNode) {
-		rootInterfaceNodes.add(rootInterfaceNode);
+		rootInterfaceNodes.add(rootInterfaceNode, getTypeCategorization().holdsWeakly(rootInterfaceNode.getLabel()));
 	}
 	
 	public ClassCategory<Object> getRootClassNode() {
-		if(objectClassNode == null) {
-			objectClassNode = (ClassCategory<Object>)getTypeCategorization().getOrCreateTypeCategory(Object.class);
+		ClassCategory<Object> classNode = objectClassNode;
+		if(classNode == null) {
+			classNode = (ClassCategory<Object>)getTypeCategorization().getOrCreateTypeCategory(Object.class); //always answers the same category
+			objectClassNode = classNode;
 		}
-		return objectClassNode;
+		return classNode;
 	}
 
 	public List<InterfaceCategory<?>> getRootInterfaceNodes() {
-		return new ArrayList<>(rootInterfaceNodes);
+		return rootInterfaceNodes.toList();
+	}
+	
+	@Override
+	void expungeUnloadedNodes() {
+		rootInterfaceNodes.expunge();
 	}
 
 	@Override
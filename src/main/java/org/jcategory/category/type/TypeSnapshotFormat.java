@@ -0,0 +1,51 @@
+package org.jcategory.category.type;
+
+import org.jcategory.category.Categorization;
+import org.jcategory.category.CategorizationListener;
+import org.jcategory.category.SnapshotFormat;
+
+/**
+ * A binary snapshot format for type categorizations. Categories are identified by the names of their classes, and the root by the empty string.
+ */
+public class TypeSnapshotFormat extends SnapshotFormat<TypeCategory<?>> {
+
+	private final ClassLoader classLoader; //loads the classes of the restored categories.
+	
+	/**
+	 * Classes are loaded with the context class loader of the current thread.
+	 */
+	public TypeSnapshotFormat() {
+		this(Thread.currentThread().getContextClassLoader());
+	}
+	
+	/**
+	 * @param classLoader the class loader of the classes of the restored categories.
+	 */
+	public TypeSnapshotFormat(ClassLoader classLoader) {
+		super("type");
+		this.classLoader = classLoader;
+	}
+
+	@Override
+	protected String labelOf(TypeCategory<?> category) {
+		return category instanceof TypeCategoryRoot ? "" : category.getLabel().getName();
+	}
+
+	@Override
+	protected TypeCategory<?> getOrCreateCategory(Categorization<TypeCategory<?>> categorization, String label) {
+		TypeCategorization typeCategorization = (TypeCategorization) categorization;
+		if(label.isEmpty())
+			return typeCategorization.getRoot();
+		try {
+			return typeCategorization.getOrCreateTypeCategory(Class.forName(label, false, classLoader));
+		} catch (ClassNotFoundException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	@Override
+	protected void addCategorizationListener(Categorization<TypeCategory<?>> categorization, CategorizationListener<TypeCategory<?>> listener) {
+		((TypeCategorization) categorization).addCategorizationListener(listener);
+	}
+	
+}
@@ -2,6 +2,7 @@ package org.jcategory.strategy;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.function.Function;
 
 import org.jcategory.ChainOfResponsibilityExhaustedException;
@@ -15,6 +16,7 @@ import org.jcategory.ChainOfResponsibilityExhaustedException;
  * <p>
  * A processing object delegates to the next object in the chain by means of throwing an instance of the exception class passed by in the constructor. 
  * If no exception is passed by at the constructor, a NoMyResponsibilityException exception is assumed as the indicator for delegation.
+ * Alternatively, commands evaluated with {@link #applyOptional(Function)} delegate by answering an empty optional.
  * </p>
  * 
  *  @param <T> the type of the processing objects in the chain of responsibility.
@@ -112,6 +114,28 @@ public class ChainOfResponsibility<T, U> {
 		throw new ChainOfResponsibilityExhaustedException();
 	}
 
+	/**
+	 * This method executes a command on each member of the responsibility chain until it finds one that answers a non-empty optional.
+	 * An empty optional signals delegation to the next object in the responsibility chain, without the cost of throwing an exception.
+	 * Delegation exceptions are also honored as in {@link #apply(Function)}.
+	 * @param evaluator the evaluator of each object in the chain of responsibility.
+	 * @return the first non-empty result of executing the command on the objects in the responsibility chain. An empty optional if all the objects delegated.
+	 */
+	public Optional<U> applyOptional(Function<T, Optional<U>> evaluator) {
+		for(T processingObject : responsibilityChain) {
+			try {
+				Optional<U> result = evaluator.apply(processingObject);
+				if(result.isPresent())
+					return result;
+			} catch (RuntimeException e) {
+				if (!isDelegationException(e)) {
+					throw e;
+				}
+			}
+		}
+		return Optional.empty();
+	}
+	
 	protected boolean isDelegationException(RuntimeException e) {
 		return exceptionClass.isInstance(e);
 	}
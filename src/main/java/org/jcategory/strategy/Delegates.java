@@ -0,0 +1,20 @@
+package org.jcategory.strategy;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares that a method of a processing object always delegates to the next object in a chain of responsibility (e.g., because the object only handles other methods of a strategy interface).
+ * Strategy objects skip processing objects whose implementation of the invoked method is annotated, instead of invoking it and catching the delegation exception.
+ * The annotated method should still signal delegation, since processing objects may be invoked in other ways.
+ *
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Delegates {
+
+}
@@ -0,0 +1,109 @@
+package org.jcategory.strategy;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Invokes a method of a strategy interface on the processing objects of a responsibility chain.
+ * A method is bound once to a method handle, so invocations do not go through reflection. 
+ * If the method cannot be bound (e.g., because of access restrictions), it is invoked reflectively.
+ * <p>
+ * Exceptions are propagated as in a reflective invocation: runtime exceptions thrown by the processing object are rethrown, any other exception is wrapped in a RuntimeException.
+ * </p>
+ *
+ */
+abstract class MethodInvoker {
+
+	/**
+	 * Invokers are attached to the class declaring their methods, so they do not prevent such class from being unloaded.
+	 */
+	private static final ClassValue<Map<Method, MethodInvoker>> INVOKERS = new ClassValue<Map<Method, MethodInvoker>>() {
+		@Override
+		protected Map<Method, MethodInvoker> computeValue(Class<?> declaringClass) {
+			return new ConcurrentHashMap<>();
+		}
+	};
+	
+	/**
+	 * @param method a method.
+	 * @return a (cached) invoker of the given method.
+	 */
+	static MethodInvoker forMethod(Method method) {
+		Map<Method, MethodInvoker> invokers = INVOKERS.get(method.getDeclaringClass());
+		MethodInvoker invoker = invokers.get(method);
+		if(invoker == null)
+			invoker = invokers.computeIfAbsent(method, MethodInvoker::bind);
+		return invoker;
+	}
+	
+	private static MethodInvoker bind(Method method) {
+		try {
+			Method accessibleMethod = method.getDeclaringClass().getMethod(method.getName(), method.getParameterTypes()); //a copy, so the accessibility of the given method is not altered
+			accessibleMethod.setAccessible(true); //the strategy interface may not be accessible from this package
+			MethodHandle methodHandle = MethodHandles.lookup().unreflect(accessibleMethod)
+					.asSpreader(Object[].class, accessibleMethod.getParameterCount())
+					.asType(MethodType.methodType(Object.class, Object.class, Object[].class));
+			return new MethodHandleInvoker(methodHandle);
+		} catch(NoSuchMethodException | IllegalAccessException | RuntimeException e) { //e.g., the method belongs to a module that is not open
+			return new ReflectiveInvoker(method);
+		}
+	}
+	
+	/**
+	 * @param object the object target of the method invocation.
+	 * @param args the arguments of the method invocation.
+	 * @return the result of the method invocation.
+	 */
+	abstract Object invoke(Object object, Object[] args);
+	
+	
+	private static class MethodHandleInvoker extends MethodInvoker {
+		
+		private final MethodHandle methodHandle; //takes the target object and an array of arguments, answers an object.
+		
+		private MethodHandleInvoker(MethodHandle methodHandle) {
+			this.methodHandle = methodHandle;
+		}
+
+		@Override
+		Object invoke(Object object, Object[] args) {
+			try {
+				return (Object) methodHandle.invokeExact(object, args);
+			} catch(RuntimeException e) {
+				throw e;
+			} catch(Throwable e) {
+				throw new RuntimeException(e);
+			}
+		}
+	}
+	
+	
+	private static class ReflectiveInvoker extends MethodInvoker {
+		
+		private final Method method;
+		
+		private ReflectiveInvoker(Method method) {
+			this.method = method;
+		}
+
+		@Override
+		Object invoke(Object object, Object[] args) {
+			try {
+				return method.invoke(object, args);
+			} catch (IllegalAccessException | IllegalArgumentException e) {
+				throw new RuntimeException(e);
+			} catch(InvocationTargetException e) {
+				if((e.getTargetException() instanceof RuntimeException))
+					throw ((RuntimeException)e.getTargetException());
+				else
+					throw new RuntimeException(e.getTargetException());
+			}
+		}
+	}
+	
+}
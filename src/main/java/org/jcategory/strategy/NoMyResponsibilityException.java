@@ -3,9 +3,28 @@ package org.jcategory.strategy;
 /**
  * Exception thrown by a processing object in a chain of responsibility to denote that it cannot manages a specific command.
  * It indicates that the command should be delegated to the next object in the chain.
+ * <p>
+ * Instances do not record a stack trace, since delegation is part of the normal flow of a responsibility chain.
+ * Processing objects may throw the shared instance answered by {@link #delegate()} to avoid allocating an exception each time they delegate.
+ * </p>
  * @author sergioc
  *
  */
 public class NoMyResponsibilityException extends RuntimeException {
 	private static final long serialVersionUID = 1L;
+	
+	private static final NoMyResponsibilityException DELEGATION = new NoMyResponsibilityException(); //shared delegation signal.
+	
+	public NoMyResponsibilityException() {
+		super(null, null, false, false);
+	}
+	
+	/**
+	 * 
+	 * @return a shared (and immutable) exception signaling delegation to the next object in a chain of responsibility.
+	 */
+	public static NoMyResponsibilityException delegate() {
+		return DELEGATION;
+	}
+	
 }
@@ -1,12 +1,12 @@
 package org.jcategory.strategy;
 
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 
 import java.util.function.Function;
 
 /**
  * A reflective evaluator that makes use of a given method and its arguments to delegate to a processing object in a responsibility chain.
+ * The method is invoked through a cached method handle when possible.
  * @author sergioc
  *
  */
@@ -30,16 +30,17 @@ public class ReflectiveEvaluator implements Function {
 	 */
 	@Override
 	public Object apply(Object object) {
-		try {
-			return command.invoke(object, args);
-		} catch (IllegalAccessException | IllegalArgumentException e) {
-			throw new RuntimeException(e);
-		} catch(InvocationTargetException e) {
-			if((e.getTargetException() instanceof RuntimeException))
-				throw ((RuntimeException)e.getTargetException());
-			else
-				throw new RuntimeException(e.getTargetException());
-		}
+		return invoke(command, object, args);
+	}
+	
+	/**
+	 * @param command the reflective method to invoke.
+	 * @param object the object target of a reflective method invocation.
+	 * @param args the arguments of the reflective method.
+	 * @return the result of the reflective method invocation.
+	 */
+	static Object invoke(Method command, Object object, Object[] args) {
+		return MethodInvoker.forMethod(command).invoke(object, args);
 	}
 	
 }
\ No newline at end of file
@@ -2,8 +2,13 @@ package org.jcategory.strategy;
 
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
+import org.jcategory.ChainOfResponsibilityExhaustedException;
 import org.jcategory.category.Category;
 import org.jcategory.category.CategoryProperty.PropertyIterable;
 import org.jcategory.category.Key;
@@ -13,6 +18,7 @@ import com.google.common.collect.Lists;
 /**
  * An invocation handler that delegates a proxied method to an object implementing the chain of responsibility pattern.
  * The objects in such chain are all the objects found in a category hierarchy (in the order specified by the default linearization function) identified by a given property, which is passed by in the constructor.
+ * If the chain is supplied, objects whose implementation of the invoked method is annotated with {@link Delegates} are skipped.
  * @author sergioc
  */
 public class StrategyInvocationHandler implements InvocationHandler {
@@ -20,6 +26,8 @@ public class StrategyInvocationHandler implements InvocationHandler {
 	private final Category category;
 	private final Key key;
 	private final Class<? extends RuntimeException> exceptionClass;
+	private final Supplier<Object[]> implementorsSupplier; //supplies the responsibility chain. null if the chain should be looked up on each invocation.
+	private volatile MethodChains methodChains; //the objects in the last supplied chain that may handle each invoked method.
 	
 	/**
 	 * @param category the category where the look-up of strategies start.
@@ -27,16 +35,90 @@ public class StrategyInvocationHandler implements InvocationHandler {
 	 * @param exceptionClass instances of this exception class denote that a processing object delegates to the next object in the responsibility chain.
 	 */
 	public StrategyInvocationHandler(Category category, Key key, Class<? extends RuntimeException> exceptionClass) {
+		this(category, key, exceptionClass, null);
+	}
+	
+	/**
+	 * @param category the category where the look-up of strategies start.
+	 * @param key the property identifier.
+	 * @param exceptionClass instances of this exception class denote that a processing object delegates to the next object in the responsibility chain.
+	 * @param implementorsSupplier supplies the objects in the responsibility chain (e.g., memoizing them until they change). The supplied array must not be modified.
+	 */
+	public StrategyInvocationHandler(Category category, Key key, Class<? extends RuntimeException> exceptionClass, Supplier<Object[]> implementorsSupplier) {
 		this.category = category;
 		this.key = key;
 		this.exceptionClass = exceptionClass;
-	} 
+		this.implementorsSupplier = implementorsSupplier;
+	}
 	
 	@Override
 	public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
-		List implementors = Lists.newArrayList(new PropertyIterable<>(category, key));
-		ChainOfResponsibility chainOfResponsibility = new ChainOfResponsibility(implementors, exceptionClass);
-		return chainOfResponsibility.apply(new ReflectiveEvaluator(method, args));
+		if(implementorsSupplier == null) {
+			List implementors = Lists.newArrayList(new PropertyIterable<>(category, key));
+			ChainOfResponsibility chainOfResponsibility = new ChainOfResponsibility(implementors, exceptionClass);
+			return chainOfResponsibility.apply(new ReflectiveEvaluator(method, args));
+		}
+		for(Object implementor : getImplementors(method)) {
+			try {
+				return ReflectiveEvaluator.invoke(method, implementor, args);
+			} catch(RuntimeException e) {
+				if(!exceptionClass.isInstance(e))
+					throw e;
+			}
+		}
+		throw new ChainOfResponsibilityExhaustedException();
+	}
+
+	/**
+	 * @param method the invoked method.
+	 * @return the objects in the supplied chain that may handle the given method.
+	 */
+	private Object[] getImplementors(Method method) {
+		Object[] implementors = implementorsSupplier.get();
+		MethodChains chains = methodChains;
+		if(chains == null || chains.implementors != implementors) { //the chain has been resolved again
+			chains = new MethodChains(implementors);
+			methodChains = chains;
+		}
+		return chains.forMethod(method);
+	}
+	
+	/**
+	 * The objects in a responsibility chain that may handle a given method.
+	 */
+	private static class MethodChains {
+		
+		private final Object[] implementors;
+		private final Map<Method, Object[]> implementorsPerMethod;
+		
+		private MethodChains(Object[] implementors) {
+			this.implementors = implementors;
+			implementorsPerMethod = new ConcurrentHashMap<>();
+		}
+		
+		private Object[] forMethod(Method method) {
+			Object[] methodImplementors = implementorsPerMethod.get(method);
+			if(methodImplementors == null)
+				methodImplementors = implementorsPerMethod.computeIfAbsent(method, this::findImplementors);
+			return methodImplementors;
+		}
+		
+		private Object[] findImplementors(Method method) {
+			List<Object> methodImplementors = new ArrayList<>();
+			for(Object implementor : implementors) {
+				if(!delegates(implementor, method))
+					methodImplementors.add(implementor);
+			}
+			return methodImplementors.size() == implementors.length ? implementors : methodImplementors.toArray();
+		}
+		
+		private static boolean delegates(Object implementor, Method method) {
+			try {
+				return implementor.getClass().getMethod(method.getName(), method.getParameterTypes()).isAnnotationPresent(Delegates.class);
+			} catch(NoSuchMethodException | SecurityException e) {
+				return false;
+			}
+		}
 	}
 
 }
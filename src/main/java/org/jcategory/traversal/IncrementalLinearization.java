@@ -0,0 +1,217 @@
+package org.jcategory.traversal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import org.jcategory.category.Category;
+import org.jcategory.traversal.OrderMaintenanceList.Entry;
+import org.jcategory.traversal.TraversalPolicy.LeafInsertion;
+
+/**
+ * A top-down linearization of a category, maintained incrementally as new leaf categories are added below such category.
+ * The linearized categories are kept in an order-maintenance list, so a new leaf is spliced next to one of its neighbors in amortized logarithmic time,
+ * without traversing nor copying the linearization.
+ * <p>
+ * Supported policies are breadth-first searches keeping the first redundant category, and any search strategy ignoring redundancy checks in categorizations without redundant paths (such as trees).
+ * Insertions and reads are synchronized, since a linearization may be read while a new leaf is inserted.
+ * </p>
+ *
+ * @param <T> the type of the linearized categories.
+ */
+public class IncrementalLinearization<T extends Category> {
+
+	private final TraversalPolicy<T> policy; //a top-down policy mapping a category to its children.
+	private final T root; //the linearized category.
+	private final OrderMaintenanceList<T> order; //the linearized categories.
+	private final Map<T, Entry<T>> entries; //the entry of each linearized category.
+	private final Map<T, Entry<T>> discoverers; //in a breadth-first search, the entry of the parent that discovered each category.
+	private final NavigableMap<Entry<T>, Entry<T>> lastDiscovered; //in a breadth-first search, the entry of the last category discovered by each parent, keyed by the entry of the parent.
+	private List<T> snapshot; //the linearized categories. null if a category was inserted since the last snapshot.
+
+	/**
+	 * @param policy the top-down policy of the linearization. It must support incremental insertions (see {@link TraversalPolicy#incrementalLinearization(Category)}).
+	 * @param root the linearized category.
+	 * @param linearization the categories of the linearization, computed from scratch.
+	 */
+	IncrementalLinearization(TraversalPolicy<T> policy, T root, List<T> linearization) {
+		this.policy = policy;
+		this.root = root;
+		order = new OrderMaintenanceList<>();
+		entries = new IdentityHashMap<>();
+		discoverers = new IdentityHashMap<>();
+		lastDiscovered = new TreeMap<>();
+		for(T category : linearization) {
+			entries.put(category, order.addLast(category));
+		}
+		if(isBreadthFirst()) {
+			for(T category : linearization) {
+				Entry<T> discoverer = discoverer(parentsIn(category));
+				if(discoverer != null) {
+					discoverers.put(category, discoverer);
+					lastDiscovered.put(discoverer, entries.get(category));
+				}
+			}
+		}
+		snapshot = Collections.unmodifiableList(linearization);
+	}
+
+	/**
+	 *
+	 * @return true if the linearization does not include a category more than once, as required for incremental insertions.
+	 */
+	boolean isRedundancyFree() {
+		return entries.size() == order.size();
+	}
+
+	private boolean isBreadthFirst() {
+		return policy.searchStrategy.equals(SearchStrategy.BREADTH_FIRST);
+	}
+
+	/**
+	 *
+	 * @return an unmodifiable list with the linearized categories. It is copied from the maintained linearization only after new leaves are inserted.
+	 */
+	public synchronized List<T> toList() {
+		if(snapshot == null) {
+			List<T> categories = new ArrayList<>(order.size());
+			for(T category : order) {
+				categories.add(category);
+			}
+			snapshot = Collections.unmodifiableList(categories);
+		}
+		return snapshot;
+	}
+
+	public synchronized int size() {
+		return order.size();
+	}
+
+	/**
+	 * Inserts a new leaf category, so this linearization is equal to the one the policy would compute from scratch.
+	 * @param insertion the insertion of the new leaf, which should be a descendant of the linearized category without children.
+	 * @return true if the leaf was inserted. false if it cannot be inserted incrementally, or it was already in the linearization (e.g., the linearization was computed while the leaf was being added).
+	 */
+	public synchronized boolean insertLeaf(LeafInsertion<T> insertion) {
+		T leaf = insertion.getLeaf();
+		if(entries.containsKey(leaf))
+			return false;
+		Entry<T> entry;
+		if(isBreadthFirst())
+			entry = insertBreadthFirst(leaf, insertion);
+		else
+			entry = insertDepthFirst(leaf, insertion);
+		if(entry == null)
+			return false;
+		entries.put(leaf, entry);
+		snapshot = null;
+		return true;
+	}
+
+	/**
+	 * In a breadth-first search with redundancy elimination, a category is discovered by the first of its parents in the linearization.
+	 * The categories discovered by a given parent are contiguous and follow the order in which the parent enumerates its children.
+	 * Such groups of categories follow the order of their discoverers.
+	 */
+	private Entry<T> insertBreadthFirst(T leaf, LeafInsertion<T> insertion) {
+		List<T> parents = parentsIn(leaf);
+		if(parents.isEmpty() || (policy.redundancyCheck.equals(RedundancyCheck.IGNORE) && parents.size() != 1))
+			return null;
+		Entry<T> discoverer = discoverer(parents);
+		T discovererCategory = discoverer.getElement();
+		List<T> siblings = insertion.getChildren(discovererCategory);
+		int leafIndex = insertion.indexOf(discovererCategory, leaf);
+		if(leafIndex == -1)
+			return null;
+		Entry<T> entry = null;
+		for(int i = leafIndex - 1; i >= 0 && entry == null; i--) { //the leaf follows the last sibling discovered before it
+			Entry<T> sibling = entries.get(siblings.get(i));
+			if(sibling == null) //the children of a linearized category are linearized too
+				return null;
+			if(discoverers.get(sibling.getElement()) == discoverer)
+				entry = order.insertAfter(sibling, leaf);
+		}
+		for(int i = leafIndex + 1; i < siblings.size() && entry == null; i++) { //or it precedes the first sibling discovered after it
+			Entry<T> sibling = entries.get(siblings.get(i));
+			if(sibling == null) //the children of a linearized category are linearized too
+				return null;
+			if(discoverers.get(sibling.getElement()) == discoverer)
+				entry = order.insertBefore(sibling, leaf);
+		}
+		if(entry == null) { //or it is the only category discovered by its discoverer
+			Map.Entry<Entry<T>, Entry<T>> previousGroup = lastDiscovered.lowerEntry(discoverer);
+			Entry<T> previous = discoverer;
+			if(previousGroup != null && discoverer.precedes(previousGroup.getValue()))
+				previous = previousGroup.getValue();
+			entry = order.insertAfter(previous, leaf);
+		}
+		discoverers.put(leaf, discoverer);
+		Entry<T> last = lastDiscovered.get(discoverer);
+		if(last == null || last.precedes(entry))
+			lastDiscovered.put(discoverer, entry);
+		return entry;
+	}
+
+	/**
+	 * Without redundant paths, the leaf is located just before its next sibling in a pre-order search (just after its previous sibling in a post-order search).
+	 * If there is no such sibling, the same rule is applied to its parent.
+	 */
+	private Entry<T> insertDepthFirst(T leaf, LeafInsertion<T> insertion) {
+		if(!policy.redundancyCheck.equals(RedundancyCheck.IGNORE))
+			return null;
+		boolean preOrder = policy.searchStrategy.equals(SearchStrategy.PRE_ORDER);
+		T category = leaf;
+		while(true) {
+			List<T> parents = parentsIn(category);
+			if(parents.size() != 1)
+				return null;
+			T parent = parents.get(0);
+			List<T> siblings = insertion.getChildren(parent);
+			int index = insertion.indexOf(parent, category);
+			if(index == -1)
+				return null;
+			T sibling = null;
+			if(preOrder && index + 1 < siblings.size())
+				sibling = siblings.get(index + 1);
+			else if(!preOrder && index > 0)
+				sibling = siblings.get(index - 1);
+			if(sibling != null) {
+				Entry<T> siblingEntry = entries.get(sibling);
+				if(siblingEntry == null)
+					return null;
+				return preOrder ? order.insertBefore(siblingEntry, leaf) : order.insertAfter(siblingEntry, leaf);
+			}
+			if(parent == root)
+				return preOrder ? order.addLast(leaf) : order.addFirst(leaf);
+			category = parent;
+		}
+	}
+
+	/**
+	 * @param parents categories in this linearization.
+	 * @return the entry of the first of the given categories in this linearization. null if there are no categories.
+	 */
+	private Entry<T> discoverer(List<T> parents) {
+		Entry<T> discoverer = null;
+		for(T parent : parents) {
+			Entry<T> entry = entries.get(parent);
+			if(discoverer == null || entry.precedes(discoverer))
+				discoverer = entry;
+		}
+		return discoverer;
+	}
+
+	private List<T> parentsIn(T category) {
+		List<T> parents = new ArrayList<>();
+		for(Category parent : category.getParents()) {
+			if(entries.containsKey(parent))
+				parents.add((T) parent);
+		}
+		return parents;
+	}
+
+}
@@ -0,0 +1,241 @@
+package org.jcategory.traversal;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A linked list whose entries are labeled with increasing numbers, so the relative order of two entries is answered by comparing their labels.
+ * <p>
+ * A new entry takes a label in the gap between its neighbors, at a fixed step from the low end of the gap (or in the middle of the gap, if the gap is smaller than two steps).
+ * When a gap is exhausted, only the smallest enclosing range of labels whose density is under a threshold is relabeled, doubling the considered range at each step.
+ * Then the amortized number of relabeled entries per insertion is logarithmic in the size of the list
+ * (see Bender et al., "Two Simplified Algorithms for Maintaining Order in a List").
+ * </p>
+ * This class is not thread-safe.
+ *
+ * @param <E> the type of the elements.
+ */
+public class OrderMaintenanceList<E> implements Iterable<E> {
+
+	private static final int LABEL_BITS = 62; //labels are in [0, 2^62).
+	private static final long LABEL_LIMIT = 1L << LABEL_BITS;
+	private static final long STEP = 1L << 32; //the maximum distance between a new entry and its previous neighbor.
+	private static final double DENSITY_BASE = 1.3; //after relabeling, a range of 2^i labels holds at most 2^i / DENSITY_BASE^i entries.
+	private static final long MIN_SPACING = 4; //the minimum distance between relabeled entries.
+
+	/**
+	 * An entry of the list.
+	 *
+	 * @param <E> the type of the element.
+	 */
+	public static final class Entry<E> implements Comparable<Entry<E>> {
+
+		private final E element;
+		private long label; //changes when the entry is relabeled, preserving the order of the entries.
+		private Entry<E> previous;
+		private Entry<E> next;
+
+		private Entry(E element, long label) {
+			this.element = element;
+			this.label = label;
+		}
+
+		public E getElement() {
+			return element;
+		}
+
+		/**
+		 *
+		 * @return the next entry in the list. null if this is the last entry.
+		 */
+		public Entry<E> getNext() {
+			return next;
+		}
+
+		/**
+		 *
+		 * @return the previous entry in the list. null if this is the first entry.
+		 */
+		public Entry<E> getPrevious() {
+			return previous;
+		}
+
+		/**
+		 * @param entry another entry of the same list.
+		 * @return true if this entry precedes the given one. false otherwise.
+		 */
+		public boolean precedes(Entry<E> entry) {
+			return label < entry.label;
+		}
+
+		@Override
+		public int compareTo(Entry<E> entry) {
+			return Long.compare(label, entry.label);
+		}
+
+	}
+
+	private Entry<E> first;
+	private Entry<E> last;
+	private int size;
+	private long relabelings; //the number of times a range of entries was relabeled.
+	private long relabeledEntries; //the number of labels reassigned by all the relabelings.
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 *
+	 * @return the first entry. null if the list is empty.
+	 */
+	public Entry<E> getFirst() {
+		return first;
+	}
+
+	/**
+	 *
+	 * @return the last entry. null if the list is empty.
+	 */
+	public Entry<E> getLast() {
+		return last;
+	}
+
+	/**
+	 *
+	 * @return the number of times a range of entries was relabeled.
+	 */
+	public long getRelabelings() {
+		return relabelings;
+	}
+
+	/**
+	 *
+	 * @return the number of labels reassigned by all the relabelings.
+	 */
+	public long getRelabeledEntries() {
+		return relabeledEntries;
+	}
+
+	/**
+	 * @param element the element to add.
+	 * @return the new first entry.
+	 */
+	public Entry<E> addFirst(E element) {
+		return insertBetween(null, first, element);
+	}
+
+	/**
+	 * @param element the element to add.
+	 * @return the new last entry.
+	 */
+	public Entry<E> addLast(E element) {
+		return insertBetween(last, null, element);
+	}
+
+	/**
+	 * @param entry an entry of this list.
+	 * @param element the element to add.
+	 * @return the new entry, following the given entry.
+	 */
+	public Entry<E> insertAfter(Entry<E> entry, E element) {
+		return insertBetween(entry, entry.next, element);
+	}
+
+	/**
+	 * @param entry an entry of this list.
+	 * @param element the element to add.
+	 * @return the new entry, preceding the given entry.
+	 */
+	public Entry<E> insertBefore(Entry<E> entry, E element) {
+		return insertBetween(entry.previous, entry, element);
+	}
+
+	private Entry<E> insertBetween(Entry<E> previous, Entry<E> next, E element) {
+		if(upperLabel(next) - lowerLabel(previous) < 2)
+			relabel(previous != null ? previous : next);
+		long lower = lowerLabel(previous);
+		long upper = upperLabel(next);
+		Entry<E> entry = new Entry<>(element, lower + Math.min(STEP, (upper - lower) / 2));
+		entry.previous = previous;
+		entry.next = next;
+		if(previous != null)
+			previous.next = entry;
+		else
+			first = entry;
+		if(next != null)
+			next.previous = entry;
+		else
+			last = entry;
+		size++;
+		return entry;
+	}
+
+	private static long lowerLabel(Entry<?> previous) {
+		return previous != null ? previous.label : -1;
+	}
+
+	private static long upperLabel(Entry<?> next) {
+		return next != null ? next.label : LABEL_LIMIT;
+	}
+
+	/**
+	 * Spreads evenly the entries in the smallest range of labels around the given entry that is sparse enough.
+	 * Afterwards, there is room for a new entry next to the given one.
+	 * @param anchor the entry next to which a new entry should be inserted.
+	 */
+	private void relabel(Entry<E> anchor) {
+		Entry<E> from = anchor; //the first entry in the range
+		Entry<E> to = anchor; //the last entry in the range
+		long count = 1;
+		double maxDensity = 1;
+		for(int bits = 1; bits <= LABEL_BITS; bits++) {
+			long rangeSize = 1L << bits;
+			long rangeStart = anchor.label & -rangeSize;
+			long rangeEnd = rangeStart + rangeSize;
+			while(from.previous != null && from.previous.label >= rangeStart) {
+				from = from.previous;
+				count++;
+			}
+			while(to.next != null && to.next.label < rangeEnd) {
+				to = to.next;
+				count++;
+			}
+			maxDensity /= DENSITY_BASE;
+			long spacing = rangeSize / count;
+			if(count <= rangeSize * maxDensity && spacing >= MIN_SPACING) {
+				long label = rangeStart + spacing / 2;
+				for(Entry<E> entry = from; entry != to.next; entry = entry.next) {
+					entry.label = label;
+					label += spacing;
+				}
+				relabelings++;
+				relabeledEntries += count;
+				return;
+			}
+		}
+		throw new IllegalStateException("Too many entries to be labeled.");
+	}
+
+	@Override
+	public Iterator<E> iterator() {
+		return new Iterator<E>() {
+			private Entry<E> next = first;
+
+			@Override
+			public boolean hasNext() {
+				return next != null;
+			}
+
+			@Override
+			public E next() {
+				if(next == null)
+					throw new NoSuchElementException();
+				E element = next.element;
+				next = next.next;
+				return element;
+			}
+		};
+	}
+
+}
@@ -4,8 +4,10 @@ import static java.util.Collections.sort;
 
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Function;
 
 import org.jcategory.category.Category;
@@ -22,6 +24,8 @@ import com.google.common.collect.TreeTraverser;
  */
 public class TraversalPolicy<T extends Category> implements Function<T, List<T>> {
 
+	private static final Function CHILDREN_FUNCTION = category -> ((Category) category).getChildren();
+
 	public final SearchStrategy searchStrategy;
 	public final RedundancyCheck redundancyCheck;
 	public final Function<T, List<T>> nextNodesFunction;
@@ -44,6 +48,97 @@ public class TraversalPolicy<T extends Category> implements Function<T, List<T>>
 		}
 	}
 
+	/**
+	 * 
+	 * @return true if linearizations computed with this policy can be maintained incrementally (see {@link #incrementalLinearization(Category)}). false otherwise.
+	 */
+	public boolean supportsIncrementalLinearization() {
+		return redundancyCheck.equals(RedundancyCheck.IGNORE) || 
+				(searchStrategy.equals(SearchStrategy.BREADTH_FIRST) && redundancyCheck.equals(RedundancyCheck.KEEP_FIRST));
+	}
+	
+	/**
+	 * Linearizes a category so new leaf categories can be inserted in the linearization without traversing the linearized categories again.
+	 * This policy should map a category to its children.
+	 * <p>
+	 * Supported policies are breadth-first searches keeping the first redundant category, and any search strategy ignoring redundancy checks (i.e., for categorizations without redundant paths, such as trees).
+	 * </p>
+	 * @param category the category to linearize.
+	 * @return a linearization of the given category, equal to the one computed by this policy. null if this policy does not support incremental insertions, or the linearization has redundant categories.
+	 */
+	public IncrementalLinearization<T> incrementalLinearization(T category) {
+		if(!supportsIncrementalLinearization())
+			return null;
+		IncrementalLinearization<T> linearization = new IncrementalLinearization<>(this, category, apply(category));
+		return linearization.isRedundancyFree() ? linearization : null;
+	}
+	
+	/**
+	 * @param leaf a new leaf category.
+	 * @return an insertion of the given leaf, to be applied to the incremental linearizations of its ancestors.
+	 */
+	public LeafInsertion<T> newLeafInsertion(T leaf) {
+		return new LeafInsertion<>(leaf, nextNodesFunction);
+	}
+	
+	/**
+	 * The insertion of a new leaf category in the incremental linearizations of its ancestors.
+	 * The children of the categories involved in the insertion are enumerated once, and shared by all the linearizations.
+	 * If the policy uses the default children function, children are enumerated without copying them (see {@link Category#getChildrenView()}) and found with {@link Category#indexOfChild(Category)}.
+	 *
+	 * @param <T> the type of the categories.
+	 */
+	public static class LeafInsertion<T extends Category> {
+		
+		private final T leaf;
+		private final Function<T, List<T>> nextNodesFunction;
+		private final Map<T, List<T>> children; //the children of the parents of the leaf or of its ancestors, by parent.
+		private final Map<T, Integer> indexes; //the index of the leaf or of one of its ancestors in the children of its parent, by parent.
+		
+		private LeafInsertion(T leaf, Function<T, List<T>> nextNodesFunction) {
+			this.leaf = leaf;
+			this.nextNodesFunction = nextNodesFunction;
+			children = new IdentityHashMap<>();
+			indexes = new IdentityHashMap<>();
+		}
+		
+		public T getLeaf() {
+			return leaf;
+		}
+		
+		List<T> getChildren(T parent) {
+			List<T> parentChildren = children.get(parent);
+			if(parentChildren == null) {
+				parentChildren = nextNodesFunction == CHILDREN_FUNCTION ? parent.getChildrenView() : nextNodesFunction.apply(parent);
+				children.put(parent, parentChildren);
+			}
+			return parentChildren;
+		}
+		
+		/**
+		 * @param parent a parent of the leaf, or of one of its ancestors.
+		 * @param child the leaf, or the ancestor of the leaf that is a child of the given parent. It should be always the same for a given parent.
+		 * @return the index of the given child in the children of the given parent. -1 if it is not a child of the parent.
+		 */
+		int indexOf(T parent, T child) {
+			Integer index = indexes.get(parent);
+			if(index == null) {
+				index = nextNodesFunction == CHILDREN_FUNCTION ? parent.indexOfChild(child) : lastIdentityIndexOf(getChildren(parent), child);
+				indexes.put(parent, index);
+			}
+			return index;
+		}
+		
+	}
+	
+	private static int lastIdentityIndexOf(List<?> list, Object element) {
+		for(int i = list.size() - 1; i >= 0; i--) { //new children are usually the last ones
+			if(list.get(i) == element)
+				return i;
+		}
+		return -1;
+	}
+
 	public static TraversalPolicy bottomUpTraversalPolicy(SearchStrategy searchStrategy, RedundancyCheck redundancyCheck) {
 		return new TraversalPolicy(searchStrategy, parentsFunction(), redundancyCheck);
 	}
@@ -77,7 +172,7 @@ public class TraversalPolicy<T extends Category> implements Function<T, List<T>>
 	 * @return a function mapping a category to its children.
 	 */
 	public static <U extends Category> Function<U, List<U>> childrenFunction() {
-		return category -> category.getChildren();
+		return CHILDREN_FUNCTION;
 	}
 	
 	/**
@@ -1,20 +1,45 @@
 package org.jcategory.category.name;
 
+import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
 import static org.jcategory.category.Key.key;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import org.jcategory.JCategory;
 import org.jcategory.category.CategorizationListener;
+import org.jcategory.category.Category;
 import org.jcategory.category.CategoryProperty;
+import org.jcategory.category.FrozenCategorization;
+import org.jcategory.category.FunctionKey;
 import org.jcategory.category.Key;
+import org.jcategory.category.KeyRegistry;
+import org.jcategory.category.LinearizationMaintenance;
+import org.jcategory.category.MappedSnapshot;
+import org.jcategory.category.PropertyResolutionCache;
+import org.jcategory.category.ValueCodecs;
+import org.jcategory.category.type.TypeSnapshotFormat;
 import org.jcategory.testutil.CounterCreationListener;
 import org.jcategory.traversal.RedundancyCheck;
 import org.jcategory.traversal.SearchStrategy;
@@ -197,4 +222,522 @@ public class NamedCategorizationTest {
 		context.forName("x.y.a.b"); //will trigger the creation of two additional packages
 		assertEquals(6, listener.getCounter());
 	}
+
+	@Test
+	public void testResolutionCache() {
+		NameCategory root = newCustomRoot();
+		PropertyResolutionCache resolutionCache = root.getCategorization().getResolutionCache();
+		NameCategory p5 = root.getCategory(packageP5);
+		long misses = resolutionCache.getMissCount();
+		long hits = resolutionCache.getHitCount();
+		assertEquals(p2Property, p5.getProperty(p2Property).get());
+		assertEquals(misses + 1, resolutionCache.getMissCount());
+		assertEquals(p2Property, p5.getProperty(p2Property).get());
+		assertTrue(p5.containsProperty(p2Property));
+		assertEquals(hits + 2, resolutionCache.getHitCount());
+		
+		//modifying an ancestor invalidates the memoized value
+		root.getCategory(packageP4).setProperty(p2Property, p4Property);
+		assertEquals(p4Property, p5.getProperty(p2Property).get());
+		root.getCategory(packageP4).removeLocalProperty(p2Property);
+		assertEquals(p2Property, p5.getProperty(p2Property).get());
+		root.getCategory(packageP2).removeLocalProperty(p2Property);
+		assertFalse(p5.containsProperty(p2Property));
+		
+		//modifying a category outside the ancestors does not affect memoized values
+		hits = resolutionCache.getHitCount();
+		root.getCategory(packageP6).setProperty(p5Property, p6Property);
+		assertEquals(p5Property, p5.getProperty(p5Property).get());
+		assertEquals(p5Property, p5.getProperty(p5Property).get());
+		assertEquals(hits + 1, resolutionCache.getHitCount());
+	}
+	
+	@Test
+	public void testLazyPropertyResolution() {
+		NameCategory root = newCustomRoot();
+		AtomicInteger visitedCategories = new AtomicInteger();
+		Key p4Label = FunctionKey.<NameCategory, String>functionKey(category -> {
+			visitedCategories.incrementAndGet();
+			return category.getLabel().equals(packageP4) ? Optional.of(category.getLabel()) : Optional.empty();
+		});
+		CategoryProperty<String> property = root.getCategory(packageP5).getProperty(p4Label);
+		assertEquals(packageP4, property.get());
+		assertEquals(2, visitedCategories.get()); //p5 and p4 are visited, p2, p1 and the root are not
+		assertTrue(property.isPresent());
+		assertEquals(4, visitedCategories.get());
+	}
+	
+	@Test
+	public void testIncrementalLinearization() {
+		TraversalPolicy<NameCategory> preOrder = TraversalPolicy.topDownTraversalPolicy(SearchStrategy.PRE_ORDER, RedundancyCheck.IGNORE);
+		NameCategorization categorization = new NameCategorization(TraversalPolicy.bottomUpTraversalPolicy(SearchStrategy.PRE_ORDER, RedundancyCheck.KEEP_LAST), preOrder);
+		categorization.setLinearizationMaintenance(LinearizationMaintenance.INCREMENTAL);
+		NameCategory root = categorization.getRoot();
+		NameCategory p1 = root.getOrCreateCategory(packageP1);
+		root.getOrCreateCategory(packageP3);
+		root.getOrCreateCategory(packageP6);
+		List<NameCategory> rootCategories = root.topDownCategories();
+		List<NameCategory> p1Categories = p1.topDownCategories();
+		root.getOrCreateCategory(packageP5); //p1.p2.p4 and p1.p2.p4.p5 are inserted between p1.p2.p3 and p1.p2.p6
+		root.getOrCreateCategory(packageP8);
+		assertEquals(rootCategories.size() + 4, root.topDownCategories().size());
+		assertEquals(p1Categories.size() + 2, p1.topDownCategories().size());
+		assertEquals(root.linearize(preOrder), root.topDownCategories());
+		assertEquals(p1.linearize(preOrder), p1.topDownCategories());
+	}
+
+	@Test
+	public void testIncrementalLinearizationOfManySiblings() {
+		for(SearchStrategy searchStrategy : asList(SearchStrategy.PRE_ORDER, SearchStrategy.POST_ORDER, SearchStrategy.BREADTH_FIRST)) {
+			TraversalPolicy<NameCategory> topDown = TraversalPolicy.topDownTraversalPolicy(searchStrategy, RedundancyCheck.IGNORE);
+			NameCategorization categorization = new NameCategorization(TraversalPolicy.bottomUpTraversalPolicy(SearchStrategy.PRE_ORDER, RedundancyCheck.KEEP_LAST), topDown);
+			categorization.setLinearizationMaintenance(LinearizationMaintenance.INCREMENTAL);
+			NameCategory root = categorization.getRoot();
+			root.topDownCategories();
+			List<Integer> indexes = new ArrayList<>();
+			for(int i = 0; i < 10000; i++) {
+				indexes.add(i);
+			}
+			Collections.shuffle(indexes, new Random(0));
+			for(int i : indexes) { //each new sibling is spliced into the cached linearizations of the root and of p
+				root.getOrCreateCategory("p.c" + i + (i % 10 == 0 ? ".d" : ""));
+			}
+			assertEquals(root.linearize(topDown), root.topDownCategories());
+		}
+	}
+
+	@Test
+	public void testKeyRegistry() {
+		JCategory context = new JCategory();
+		KeyRegistry keyRegistry = context.getNamedCategorization().getKeyRegistry();
+		Key key1 = key("k1");
+		Key key2 = key("k2");
+		context.forName("a").setProperty(key1, "x");
+		context.forName("a.b").setProperty(key2, "y");
+		context.forName("a.b").setProperty(key("k1"), "z"); //an equal key has the same id
+		assertEquals(2, keyRegistry.size());
+		assertEquals(0, keyRegistry.findId(key1));
+		assertEquals(1, keyRegistry.findId(key("k2")));
+		assertEquals(-1, keyRegistry.findId(key("k3")));
+		assertEquals(key2, keyRegistry.getKey(1));
+		assertEquals("[a.b]{k1=z, k2=y}", context.forName("a.b").toString());
+		assertEquals("z", context.forName("a.b.c").getProperty(key1).get());
+		context.forName("a.b").removeLocalProperty(key1);
+		assertEquals("[a.b]{k2=y}", context.forName("a.b").toString());
+		assertEquals("x", context.forName("a.b.c").getProperty(key1).get());
+	}
+
+	@Test
+	public void testIntervalIndex() {
+		JCategory context = new JCategory();
+		context.forName(packageP3);
+		NameCategorization categorization = context.getNamedCategorization();
+		categorization.setIntervalIndexEnabled(true);
+		assertTrue(categorization.isIntervalIndexEnabled());
+		context.forName(packageP5);
+		context.forName(packageP6);
+		context.forName(packageP8);
+		NameCategory p2 = context.forName(packageP2);
+		assertTrue(context.forName(packageP5).isDescendantOf(p2));
+		assertTrue(context.forName(packageP5).isDescendantOf(context.forNameRoot()));
+		assertFalse(p2.isDescendantOf(p2));
+		assertFalse(context.forName(packageP8).isDescendantOf(p2));
+		assertFalse(p2.isDescendantOf(context.forName(packageP5)));
+		assertEquals(5, p2.getSubtreeSize());
+		assertEquals(p2.topDownCategories().size(), p2.getSubtreeCategories().size());
+		assertTrue(p2.getSubtreeCategories().containsAll(p2.topDownCategories()));
+		assertEquals(p2, p2.getSubtreeCategories().get(0));
+		
+		NameCategory p4 = context.forName(packageP4);
+		for(int i = 0; i < 100; i++) { //exhausts the gaps of the labeling
+			p4.getOrCreateCategory("x" + i + ".y");
+		}
+		assertTrue(categorization.getIntervalIndex().getRelabelings() > 1);
+		assertEquals(202, p4.getSubtreeSize());
+		assertEquals(205, p2.getSubtreeSize());
+		assertTrue(context.forName(packageP4 + ".x50.y").isDescendantOf(p2));
+		assertFalse(context.forName(packageP4 + ".x50.y").isDescendantOf(context.forName(packageP4 + ".x51")));
+		List<NameCategory> subtree = p4.getSubtreeCategories();
+		assertEquals(202, subtree.size());
+		for(NameCategory category : subtree.subList(1, subtree.size())) {
+			assertTrue(subtree.indexOf(category.getParent()) < subtree.indexOf(category));
+		}
+		
+		categorization.setIntervalIndexEnabled(false);
+		assertEquals(205, p2.getSubtreeSize());
+		assertTrue(context.forName(packageP4 + ".x50.y").isDescendantOf(p2));
+	}
+
+	@Test
+	public void testIntervalIndexRelabelings() {
+		JCategory context = new JCategory();
+		NameCategorization categorization = context.getNamedCategorization();
+		categorization.setIntervalIndexEnabled(true);
+		NameCategory p1 = context.forName(packageP1);
+		int siblings = 10000;
+		for(int i = 0; i < siblings; i++) { //each new sibling takes the low end of the same gap
+			p1.getOrCreateCategory("x" + i);
+		}
+		NameIntervalIndex intervalIndex = categorization.getIntervalIndex();
+		int insertedBounds = 2 * siblings;
+		double log2 = Math.log(insertedBounds) / Math.log(2);
+		assertTrue(intervalIndex.getRelabelings() > 0);
+		assertTrue(intervalIndex.getRelabeledBounds() < 2 * log2 * insertedBounds); //the amortized number of relabeled bounds per inserted bound is logarithmic
+		assertEquals(siblings + 1, p1.getSubtreeSize());
+		assertEquals(siblings + 1, p1.getSubtreeCategories().size());
+		assertTrue(context.forName("p1.x5000").isDescendantOf(p1));
+		assertFalse(context.forName("p1.x5000").isDescendantOf(context.forName("p1.x4999")));
+	}
+
+	@Test
+	public void testConcurrentIntervalIndexQueries() throws InterruptedException {
+		JCategory context = new JCategory();
+		context.getNamedCategorization().setIntervalIndexEnabled(true);
+		NameCategory p1 = context.forName(packageP1);
+		AtomicInteger failures = new AtomicInteger();
+		Thread writer = new Thread(() -> {
+			for(int i = 0; i < 5000; i++) {
+				p1.getOrCreateCategory("x" + i + ".y");
+			}
+		});
+		writer.start();
+		while(writer.isAlive()) { //published children must already be labeled
+			for(NameCategory child : p1.getChildrenView()) {
+				try {
+					if(child.getSubtreeSize() < 1 || child.getSubtreeCategories().isEmpty() || !child.isDescendantOf(p1))
+						failures.incrementAndGet();
+				} catch(RuntimeException e) {
+					failures.incrementAndGet();
+				}
+			}
+		}
+		writer.join();
+		assertEquals(0, failures.get());
+		assertEquals(2 * 5000 + 1, p1.getSubtreeSize());
+	}
+
+	@Test
+	public void testFrozenCategorization() {
+		JCategory context = new JCategory();
+		NameCategory p5 = context.forName(packageP5);
+		context.forName(packageP1).setProperty(p1Property, "x");
+		p5.setProperty(p5Property, "y");
+		context.forName(packageP8);
+		FrozenCategorization<NameCategory> snapshot = context.freeze(JCategory.TYPE_HIERARCHY_ID); //the named categorization is registered under this key
+		assertSame(snapshot, context.getSnapshot(JCategory.TYPE_HIERARCHY_ID));
+		assertEquals(context.forNameRoot().topDownCategories().size(), snapshot.size());
+		assertSame(context.forNameRoot(), snapshot.getCategory(0));
+		
+		int p5Index = snapshot.indexOf(p5);
+		assertSame(p5, snapshot.getCategory(p5Index));
+		assertEquals(1, snapshot.getParentCount(p5Index));
+		assertSame(p5.getParent(), snapshot.getCategory(snapshot.getParent(p5Index, 0)));
+		assertEquals(0, snapshot.getChildCount(p5Index));
+		assertEquals(p5.bottomUpCategories().size(), snapshot.getBottomUpLength(p5Index));
+		assertEquals("x", snapshot.getProperty(p5Index, p1Property));
+		assertEquals("y", snapshot.getLocalProperty(p5Index, p5Property));
+		assertNull(snapshot.getLocalProperty(p5Index, p1Property));
+		assertNull(snapshot.getProperty(snapshot.indexOf(context.forName(packageP8)), p1Property));
+		int p1KeyId = snapshot.findKeyId(p1Property);
+		assertEquals(2, snapshot.getKeyCount());
+		assertSame(p1Property, snapshot.getKey(p1KeyId));
+		assertEquals("x", snapshot.getProperty(p5Index, p1KeyId));
+		assertEquals(-1, snapshot.findKeyId(p2Property));
+		assertEquals(-1, snapshot.indexOf(new JCategory().forName(packageP5))); //a category of another categorization
+		
+		p5.setProperty(p5Property, "z"); //changes are not visible in the snapshot
+		NameCategory newCategory = context.forName("p9");
+		assertEquals("y", snapshot.getLocalProperty(p5Index, p5Property));
+		assertEquals(-1, snapshot.indexOf(newCategory));
+		p5.setProperty(p2Property, "w"); //keys registered after the snapshot was taken are not in the snapshot
+		assertEquals(-1, snapshot.findKeyId(p2Property));
+		assertNull(snapshot.getLocalProperty(p5Index, p2Property));
+		
+		FrozenCategorization<NameCategory> newSnapshot = context.freeze(JCategory.TYPE_HIERARCHY_ID);
+		assertSame(newSnapshot, context.getSnapshot(JCategory.TYPE_HIERARCHY_ID));
+		assertEquals("z", newSnapshot.getLocalProperty(newSnapshot.indexOf(p5), p5Property));
+		assertSame(newCategory, newSnapshot.getCategory(newSnapshot.indexOf(newCategory)));
+	}
+	
+	@Test
+	public void testAtomicUpdates() throws InterruptedException {
+		JCategory context = new JCategory();
+		NameCategory p1 = context.forName(packageP1);
+		NameCategory p2 = context.forName(packageP2);
+		p1.setProperty(p1Property, "x");
+		long version = context.getNamedCategorization().getPropertyVersion();
+		List<Object> concurrentlyRead = new ArrayList<>();
+		context.getNamedCategorization().atomically(() -> {
+			p1.setProperty(p1Property, "y");
+			p2.setProperty(p2Property, "y");
+			assertEquals("y", p2.getProperty(p1Property).get()); //a writer sees its own modifications
+			Thread reader = new Thread(() -> {
+				concurrentlyRead.add(p2.getProperty(p1Property).get());
+				concurrentlyRead.add(p2.getProperty(p2Property).isPresent());
+			});
+			reader.start();
+			try {
+				reader.join();
+			} catch (InterruptedException e) {
+				throw new RuntimeException(e);
+			}
+		});
+		assertEquals(asList("x", false), concurrentlyRead); //readers do not see uncommitted modifications
+		assertEquals(version + 1, context.getNamedCategorization().getPropertyVersion());
+		assertEquals("y", p2.getProperty(p1Property).get());
+		assertEquals("y", p2.getProperty(p2Property).get());
+		
+		try {
+			context.getNamedCategorization().atomically(() -> {
+				p1.setProperty(p1Property, "z");
+				throw new IllegalStateException();
+			});
+		} catch(IllegalStateException e) {}
+		assertEquals("y", p2.getProperty(p1Property).get()); //the failed update is discarded
+		assertEquals(version + 1, context.getNamedCategorization().getPropertyVersion());
+	}
+	
+	@Test
+	public void testPruneVersionsAfterPinnedReads() throws InterruptedException {
+		JCategory context = new JCategory();
+		NameCategorization categorization = context.getNamedCategorization();
+		NameCategory p1 = context.forName(packageP1);
+		NameCategory p3 = context.forName(packageP3);
+		p1.setProperty(p1Property, "x");
+		CountDownLatch pinned = new CountDownLatch(1);
+		CountDownLatch written = new CountDownLatch(1);
+		Function<Category, List<Category>> blockingLinearization = category -> Lists.transform(category.bottomUpCategories(), ancestor -> {
+			if(ancestor == p3) { //the reader has pinned its version
+				pinned.countDown();
+				try {
+					written.await();
+				} catch (InterruptedException e) {
+					throw new RuntimeException(e);
+				}
+			}
+			return ancestor;
+		});
+		List<Object> read = new ArrayList<>();
+		Thread reader = new Thread(() -> read.add(new CategoryProperty<>(p3, p1Property, blockingLinearization).get()));
+		reader.start();
+		pinned.await();
+		p1.setProperty(p1Property, "y");
+		assertEquals(1, categorization.getRetainingCategoryCount()); //the previous version of p1 is visible to the reader
+		written.countDown();
+		reader.join();
+		assertEquals(asList("x"), read);
+		assertEquals(0, categorization.getRetainingCategoryCount()); //released when the reader is done
+		assertEquals("y", p3.getProperty(p1Property).get());
+	}
+
+	@Test
+	public void testConsistentResolutions() throws InterruptedException {
+		JCategory context = new JCategory();
+		NameCategory p1 = context.forName(packageP1);
+		NameCategory p3 = context.forName(packageP3);
+		p1.setProperty(p1Property, 0);
+		AtomicInteger inconsistencies = new AtomicInteger();
+		Thread writer = new Thread(() -> {
+			for(int i = 1; i <= 1000; i++) {
+				int value = i;
+				context.getNamedCategorization().atomically(() -> { //the property is moved from one category to another
+					if(value % 2 == 0) {
+						context.forName(packageP2).removeLocalProperty(p1Property);
+						p1.setProperty(p1Property, value);
+					} else {
+						p1.removeLocalProperty(p1Property);
+						context.forName(packageP2).setProperty(p1Property, value);
+					}
+				});
+			}
+		});
+		writer.start();
+		while(writer.isAlive()) {
+			if(!new CategoryProperty<>(p3, p1Property, TraversalPolicy.bottomUpTraversalPolicy(SearchStrategy.PRE_ORDER, RedundancyCheck.IGNORE)).isPresent())
+				inconsistencies.incrementAndGet();
+			if(!p3.getProperty(p1Property).isPresent())
+				inconsistencies.incrementAndGet();
+		}
+		writer.join();
+		assertEquals(0, inconsistencies.get());
+		assertEquals(1000, p3.getProperty(p1Property).get());
+	}
+	
+	@Test
+	public void testConsistentFrozenCategorizations() throws InterruptedException {
+		JCategory context = new JCategory();
+		NameCategory p1 = context.forName(packageP1);
+		NameCategory p2 = context.forName(packageP2);
+		NameCategory p3 = context.forName(packageP3);
+		for(int i = 0; i < 1000; i++) { //siblings of p2 collected between p1 and p2
+			p1.getOrCreateCategory("a" + i);
+		}
+		p1.setProperty(p1Property, 0);
+		AtomicInteger inconsistencies = new AtomicInteger();
+		AtomicBoolean reading = new AtomicBoolean(true);
+		Thread writer = new Thread(() -> {
+			for(int i = 1; reading.get(); i++) {
+				int value = i;
+				context.getNamedCategorization().atomically(() -> { //the property is moved from one category to another
+					if(value % 2 == 0) {
+						p2.removeLocalProperty(p1Property);
+						p1.setProperty(p1Property, value);
+					} else {
+						p1.removeLocalProperty(p1Property);
+						p2.setProperty(p1Property, value);
+					}
+				});
+			}
+		});
+		writer.start();
+		for(int i = 0; i < 300; i++) {
+			FrozenCategorization<NameCategory> snapshot = context.getNamedCategorization().freeze();
+			boolean inP1 = snapshot.getLocalProperty(snapshot.indexOf(p1), p1Property) != null;
+			boolean inP2 = snapshot.getLocalProperty(snapshot.indexOf(p2), p1Property) != null;
+			if(inP1 == inP2 || snapshot.getProperty(snapshot.indexOf(p3), p1Property) == null)
+				inconsistencies.incrementAndGet();
+		}
+		reading.set(false);
+		writer.join();
+		assertEquals(0, inconsistencies.get());
+	}
+
+	@Test
+	public void testCharSequenceLookup() {
+		JCategory context = new JCategory();
+		NameCategory p5 = context.forName(packageP5);
+		NameCategory root = context.forNameRoot();
+		assertSame(p5, root.getCategory(new StringBuilder(packageP5)));
+		assertSame(p5, root.getCategory(packageP5 + "."));
+		assertSame(p5, context.forName(packageP2).getCategory("p4.p5"));
+		assertSame(root, root.getCategory(""));
+		assertNull(root.getCategory("p1.p2.p9"));
+		assertNull(root.getCategory("p1.p2.p4.p5.p9"));
+		assertNull(root.getCategory("p1.p2.p")); //a prefix of a simple name is not a match
+		
+		int categories = root.topDownCategories().size();
+		assertSame(p5, context.forName(new StringBuilder("xp1.p2.p4.p5").subSequence(1, 12)));
+		assertEquals(categories, root.topDownCategories().size()); //no category was created
+		
+		context.forName("p1.b");
+		context.forName("p1.a");
+		context.forName("p1.c");
+		context.forName("p1.ab");
+		assertEquals(asList("a", "ab", "b", "c", "p2"), context.forName(packageP1).getChildren().stream().map(NameCategory::getSimpleName).collect(Collectors.toList()));
+		assertEquals("p1.ab", root.getCategory("p1.ab").getLabel());
+	}
+	
+	@Test
+	public void testNameIndex() {
+		JCategory context = new JCategory();
+		NameCategory p3 = context.forName(packageP3);
+		NameCategorization categorization = context.getNamedCategorization();
+		categorization.setNameIndexEnabled(true);
+		assertTrue(categorization.isNameIndexEnabled());
+		assertSame(p3, categorization.findIndexed(packageP3)); //existing categories are indexed when the index is enabled
+		assertSame(context.forNameRoot(), categorization.findIndexed(""));
+		assertSame(p3, context.forName(packageP3));
+		
+		NameCategory p5 = context.forName(packageP5);
+		assertSame(p5, categorization.findIndexed(packageP5)); //new categories are indexed when added
+		assertSame(context.forName(packageP4), categorization.findIndexed(packageP4));
+		assertSame(p5, context.forName(packageP5 + ".")); //names not found in the index are walked
+		assertSame(p5, context.forNameRoot().getCategory(new StringBuilder(packageP5)));
+		assertNull(context.forNameRoot().getCategory("p1.p9"));
+		assertNull(categorization.findIndexed("p1.p9"));
+		
+		categorization.setNameIndexEnabled(false);
+		assertNull(categorization.findIndexed(packageP5));
+		assertSame(p5, context.forName(packageP5));
+	}
+	
+	@Test
+	public void testConcurrentCreation() throws InterruptedException {
+		JCategory context = new JCategory();
+		NameCategorization categorization = context.getNamedCategorization();
+		categorization.setNameIndexEnabled(true);
+		AtomicInteger notifications = new AtomicInteger();
+		Set<NameCategory> notifiedCategories = ConcurrentHashMap.newKeySet();
+		categorization.addCategorizationListener(category -> {
+			notifications.incrementAndGet();
+			notifiedCategories.add(category);
+		});
+		int tenants = 50;
+		CountDownLatch start = new CountDownLatch(1);
+		List<Thread> threads = new ArrayList<>();
+		for(int i = 0; i < 8; i++) {
+			int threadIndex = i;
+			Thread thread = new Thread(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					throw new RuntimeException(e);
+				}
+				for(int j = 0; j < tenants; j++) {
+					context.forName("org.acme.tenant" + ((j + threadIndex) % tenants) + ".logger");
+				}
+			});
+			threads.add(thread);
+			thread.start();
+		}
+		start.countDown();
+		for(Thread thread : threads) {
+			thread.join();
+		}
+		NameCategory acme = context.forNameRoot().getCategory("org.acme");
+		assertEquals(tenants, acme.getChildren().size());
+		assertEquals(2 + 2 * tenants, notifications.get()); //each new category was notified once
+		assertEquals(notifications.get(), notifiedCategories.size());
+		List<String> simpleNames = acme.getChildren().stream().map(NameCategory::getSimpleName).collect(Collectors.toList());
+		assertEquals(simpleNames.stream().sorted().collect(Collectors.toList()), simpleNames);
+		for(int j = 0; j < tenants; j++) {
+			NameCategory logger = context.forNameRoot().getCategory("org.acme.tenant" + j + ".logger");
+			assertTrue(notifiedCategories.contains(logger));
+			assertSame(logger, categorization.findIndexed(logger.getLabel()));
+			assertSame(acme, logger.getParent().getParent());
+		}
+		assertEquals(3 + 2 * tenants, context.forNameRoot().topDownCategories().size());
+	}
+	
+	@Test
+	public void testBinarySnapshot() throws IOException {
+		JCategory context = new JCategory();
+		context.forName(packageP1).setProperty(p1Property, "x");
+		context.forName(packageP5).setProperty(p5Property, 5);
+		context.forName(packageP8).setProperty(p8Property, "y");
+		NameSnapshotFormat format = new NameSnapshotFormat();
+		format.addProperty("p1", p1Property, ValueCodecs.STRING);
+		format.addProperty("p5", p5Property, ValueCodecs.INTEGER); //p8 is not included
+		Path file = Files.createTempFile("names", ".jcat");
+		try {
+			format.write(context.getNamedCategorization(), file);
+			MappedSnapshot<NameCategory> snapshot = format.map(file);
+			assertEquals(context.forNameRoot().topDownCategories().size(), snapshot.size());
+			assertEquals("", snapshot.getLabel(0)); //sorted by label
+			assertEquals(-1, snapshot.indexOf("p9"));
+			
+			JCategory restoredContext = new JCategory();
+			snapshot.materializeAll(restoredContext.getNamedCategorization());
+			assertEquals(snapshot.size(), restoredContext.forNameRoot().topDownCategories().size());
+			assertEquals("x", restoredContext.forName(packageP5).getProperty(p1Property).get());
+			assertEquals(5, restoredContext.forName(packageP5).getProperty(p5Property).get());
+			assertFalse(restoredContext.forName(packageP8).containsProperty(p8Property));
+			
+			JCategory lazyContext = new JCategory();
+			NameCategory p1 = lazyContext.forName(packageP1);
+			format.map(file).attach(lazyContext.getNamedCategorization());
+			assertEquals("x", p1.getLocalProperty(p1Property).get(0)); //existing categories are materialized when attached
+			assertEquals(2, lazyContext.forNameRoot().topDownCategories().size()); 
+			assertEquals(5, lazyContext.forName(packageP5).getLocalProperty(p5Property).get(0)); //new categories are materialized on first access
+			assertEquals("x", lazyContext.forName(packageP5).getProperty(p1Property).get());
+			
+			try {
+				new TypeSnapshotFormat().map(file);
+				fail();
+			} catch(IOException e) {}
+		} finally {
+			Files.delete(file);
+		}
+	}
+	
 }
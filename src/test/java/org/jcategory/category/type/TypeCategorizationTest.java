@@ -2,26 +2,55 @@ package org.jcategory.category.type;
 
 import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
+import static java.util.stream.Collectors.toList;
 import static org.jcategory.category.Key.key;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 import java.io.Serializable;
+import java.lang.ref.WeakReference;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.AbstractCollection;
 import java.util.AbstractList;
+import java.util.AbstractSequentialList;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Optional;
 import java.util.RandomAccess;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
 
 import org.jcategory.JCategory;
 import org.jcategory.category.CategorizationListener;
 import org.jcategory.category.CategoryProperty;
+import org.jcategory.category.FrozenCategorization;
 import org.jcategory.category.Key;
+import org.jcategory.category.LinearizationMaintenance;
+import org.jcategory.category.ValueCodecs;
+import org.jcategory.testutil.animalhierarchy.Cat;
 import org.jcategory.category.name.NameCategory;
 import org.jcategory.category.type.TypeCategoryRoot.Any;
 import org.jcategory.testutil.CounterCreationListener;
@@ -182,6 +211,21 @@ public class TypeCategorizationTest {
 		assertEquals(v4, properties.get(3));
 	}
 	
+	@Test
+	public void testFrozenTypeCategorization() {
+		JCategory context = new JCategory();
+		context.forClass(ArrayList.class);
+		context.forClass(LinkedList.class);
+		FrozenCategorization<TypeCategory<?>> snapshot = context.getTypeCategorization().freeze();
+		assertEquals(context.forTypeRoot().topDownCategories().size(), snapshot.size());
+		assertSame(context.forTypeRoot(), snapshot.getCategory(0));
+		for(int i = 0; i < snapshot.size(); i++) { //parents precede their children, although some categories are reachable through paths of different lengths
+			for(int j = 0; j < snapshot.getParentCount(i); j++) {
+				assertTrue(snapshot.getParent(i, j) < i);
+			}
+		}
+	}
+	
 	@Test
 	public void testListener() {
 		JCategory context = new JCategory();
@@ -268,4 +312,450 @@ public class TypeCategorizationTest {
 		assertEquals(emptyList(), hashSetCategory.getLocalProperty(key));
 	}
 	
+	@Test
+	public void testSetQuantifiedInvalidatesResolutions() {
+		Key key = key();
+		JCategory context = new JCategory();
+		TypeCategory arrayListCategory = context.forClass(ArrayList.class);
+		TypeCategory hashSetCategory = context.forClass(HashSet.class);
+		context.forClass(Collection.class).setProperty(key, "x");
+		assertEquals("x", arrayListCategory.getProperty(key).get());
+		assertEquals("x", hashSetCategory.getProperty(key).get());
+		
+		context.getTypeCategorization().setQuantified(Arrays.<Class<?>>asList(List.class), key, "y");
+		assertEquals("y", arrayListCategory.getProperty(key).get());
+		assertEquals("x", hashSetCategory.getProperty(key).get());
+		
+		context.getTypeCategorization().removeQuantified(Arrays.<Class<?>>asList(List.class), key);
+		assertEquals("x", arrayListCategory.getProperty(key).get());
+	}
+	
+	@Test
+	public void testCachedTopDownLinearization() {
+		JCategory context = new JCategory();
+		context.forClass(ArrayList.class);
+		TypeCategory<List> listCategory = context.forClass(List.class);
+		List<TypeCategory<?>> topDownCategories = listCategory.topDownCategories();
+		assertSame(topDownCategories, listCategory.topDownCategories());
+		assertEquals(2, listCategory.getKnownSubClasses().size());
+		
+		context.forClass(HashSet.class); //not a descendant of List
+		assertSame(topDownCategories, listCategory.topDownCategories());
+		
+		context.forClass(LinkedList.class);
+		assertEquals(4, listCategory.getKnownSubClasses().size()); //AbstractSequentialList and LinkedList are new descendants
+		assertEquals(topDownCategories.size() + 2, listCategory.topDownCategories().size());
+	}
+	
+	@Test
+	public void testIncrementalTopDownLinearization() {
+		JCategory context = new JCategory();
+		context.getTypeCategorization().setLinearizationMaintenance(LinearizationMaintenance.INCREMENTAL);
+		context.forClass(ArrayList.class);
+		TypeCategory<Object> objectCategory = context.forClass(Object.class);
+		TypeCategory<Collection> collectionCategory = context.forClass(Collection.class);
+		objectCategory.topDownCategories();
+		collectionCategory.topDownCategories();
+		context.forClass(LinkedList.class);
+		context.forClass(HashSet.class);
+		Function<TypeCategory<?>, List<TypeCategory<?>>> topDown = TopDownTypeTraversalPolicy.topDownTypeTraversalPolicy(SearchStrategy.BREADTH_FIRST, Priority.CLASSES_FIRST, RedundancyCheck.KEEP_FIRST);
+		assertEquals(objectCategory.linearize(topDown), objectCategory.topDownCategories());
+		assertEquals(collectionCategory.linearize(topDown), collectionCategory.topDownCategories());
+	}
+	
+	@Test
+	public void testConcurrentCreation() throws InterruptedException {
+		JCategory context = new JCategory();
+		AtomicInteger notifications = new AtomicInteger();
+		Set<TypeCategory<?>> notifiedCategories = ConcurrentHashMap.newKeySet();
+		context.getTypeCategorization().addCategorizationListener(category -> {
+			notifications.incrementAndGet();
+			notifiedCategories.add(category);
+		});
+		List<Class<?>> classes = asList(ArrayList.class, LinkedList.class, HashSet.class, TreeMap.class, Integer.class, StringBuilder.class);
+		List<TypeCategory<?>>[] categoriesPerThread = new List[8];
+		CountDownLatch start = new CountDownLatch(1);
+		List<Thread> threads = new ArrayList<>();
+		for(int i = 0; i < categoriesPerThread.length; i++) {
+			int threadIndex = i;
+			Thread thread = new Thread(() -> {
+				List<TypeCategory<?>> categories = new ArrayList<>();
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					throw new RuntimeException(e);
+				}
+				for(int j = 0; j < classes.size(); j++) {
+					categories.add(context.forClass(classes.get((j + threadIndex) % classes.size())));
+				}
+				categoriesPerThread[threadIndex] = categories;
+			});
+			threads.add(thread);
+			thread.start();
+		}
+		start.countDown();
+		for(Thread thread : threads) {
+			thread.join();
+		}
+		for(List<TypeCategory<?>> categories : categoriesPerThread) {
+			for(TypeCategory<?> category : categories) {
+				assertSame(category, context.forClass(category.getLabel()));
+				assertTrue(notifiedCategories.contains(category));
+			}
+		}
+		assertEquals(notifiedCategories.size(), notifications.get()); //each category was published once
+		assertSame(context.forClass(Object.class), ((ClassCategory<?>) context.forClass(Number.class)).getSuperClassNode());
+		assertEquals(1, context.forClass(AbstractList.class).getChildren().stream().filter(category -> category == context.forClass(ArrayList.class)).count());
+	}
+	
+	@Test
+	public void testClassValueIndexing() {
+		JCategory context = new JCategory();
+		TypeCategorization typeCategorization = context.getTypeCategorization();
+		TypeCategory<ArrayList> arrayListCategory = context.forClass(ArrayList.class);
+		typeCategorization.setIndexing(TypeCategoryIndexing.CLASS_VALUE);
+		assertEquals(TypeCategoryIndexing.CLASS_VALUE, typeCategorization.getIndexing());
+		assertSame(arrayListCategory, typeCategorization.getTypeCategory(ArrayList.class));
+		assertSame(context.forClass(List.class), typeCategorization.getTypeCategory(List.class)); //created before the indexing changed
+		assertNull(typeCategorization.getTypeCategory(LinkedList.class));
+		TypeCategory<LinkedList> linkedListCategory = context.forClass(LinkedList.class);
+		assertSame(linkedListCategory, typeCategorization.getTypeCategory(LinkedList.class));
+		assertSame(context.forClass(AbstractList.class), ((ClassCategory<?>) context.forClass(AbstractSequentialList.class)).getSuperClassNode());
+		
+		typeCategorization.setIndexing(TypeCategoryIndexing.HASH_MAP);
+		assertSame(linkedListCategory, typeCategorization.getTypeCategory(LinkedList.class));
+		assertSame(arrayListCategory, context.forClass(ArrayList.class));
+	}
+
+	@Test
+	public void testIndexingDoesNotRetainCategorization() throws Exception {
+		for(TypeCategoryIndexing indexing : TypeCategoryIndexing.values()) {
+			for(ClassRetention classRetention : ClassRetention.values()) {
+				WeakReference<TypeCategorization> typeCategorization = categorizeInNewContext(indexing, classRetention);
+				for(int i = 0; i < 50 && typeCategorization.get() != null; i++) {
+					System.gc();
+					Thread.sleep(20);
+				}
+				assertNull(typeCategorization.get());
+			}
+		}
+		JCategory context = new JCategory();
+		context.getTypeCategorization().setIndexing(TypeCategoryIndexing.CLASS_VALUE);
+		Key key = key();
+		context.forClass(ArrayList.class).setProperty(key, "x");
+		System.gc();
+		assertEquals("x", context.getTypeCategorization().getTypeCategory(ArrayList.class).getLocalProperty(key).get(0)); //categories are retained by the categorization
+	}
+
+	private static WeakReference<TypeCategorization> categorizeInNewContext(TypeCategoryIndexing indexing, ClassRetention classRetention) {
+		JCategory context = new JCategory();
+		context.getTypeCategorization().setIndexing(indexing);
+		context.getTypeCategorization().setClassRetention(classRetention);
+		context.forClass(ArrayList.class);
+		context.forClass(Cat.class);
+		return new WeakReference<>(context.getTypeCategorization());
+	}
+
+	@Test
+	public void testAncestorQueries() {
+		JCategory context = new JCategory();
+		TypeCategory<ArrayList> arrayListCategory = context.forClass(ArrayList.class);
+		TypeCategory<LinkedList> linkedListCategory = context.forClass(LinkedList.class);
+		assertTrue(arrayListCategory.isDescendantOf(context.forClass(AbstractList.class)));
+		assertTrue(arrayListCategory.isDescendantOf(context.forClass(Collection.class)));
+		assertTrue(arrayListCategory.isDescendantOf(context.forTypeRoot()));
+		assertFalse(arrayListCategory.isDescendantOf(arrayListCategory));
+		assertFalse(arrayListCategory.isDescendantOf(linkedListCategory));
+		assertFalse(context.forClass(List.class).isDescendantOf(arrayListCategory));
+		assertFalse(arrayListCategory.isDescendantOf(new JCategory().forClass(List.class)));
+		
+		List<TypeCategory<?>> commonAncestors = arrayListCategory.commonAncestors(linkedListCategory);
+		assertEquals(asList(AbstractList.class, AbstractCollection.class, Object.class, List.class, Collection.class, Iterable.class, Cloneable.class, Serializable.class, Any.class), 
+				commonAncestors.stream().map(TypeCategory::getLabel).collect(toList()));
+		assertEquals(asList(context.forClass(AbstractList.class), context.forClass(AbstractCollection.class)), arrayListCategory.commonAncestors(context.forClass(AbstractList.class)).subList(0, 2));
+		
+		assertTrue(arrayListCategory.isInBoundaries(asList(Object.class, List.class, RandomAccess.class)));
+		assertFalse(linkedListCategory.isInBoundaries(asList(List.class, RandomAccess.class)));
+		assertTrue(context.forClass(List.class).isInBoundaries(asList(Object.class, Collection.class)));
+	}
+	
+	@Test
+	public void testFindBoundedTypes() {
+		JCategory context = new JCategory();
+		TypeCategorization typeCategorization = context.getTypeCategorization();
+		context.forClass(ArrayList.class);
+		context.forClass(HashSet.class);
+		List<Class<?>> bounds = Arrays.<Class<?>>asList(Collection.class, AbstractList.class, RandomAccess.class);
+		List<TypeCategory<?>> boundedTypes = typeCategorization.findBoundedTypes(bounds);
+		assertEquals(asList(context.forClass(ArrayList.class)), boundedTypes);
+		assertEquals(boundedTypes, typeCategorization.findBoundedTypes(bounds));
+		assertEquals(new HashSet<>(context.forClass(Collection.class).topDownCategories()), 
+				new HashSet<>(typeCategorization.findBoundedTypes(Arrays.<Class<?>>asList(Collection.class, Object.class)))); //interfaces are also bounded by Object
+		assertEquals(emptyList(), typeCategorization.findBoundedTypes(Arrays.<Class<?>>asList(Collection.class, Comparable.class)));
+		
+		assertEquals(3, typeCategorization.getCachedBoundedTypesCount());
+		
+		context.forClass(Vector.class); //registering a new type invalidates the cached results
+		assertEquals(0, typeCategorization.getCachedBoundedTypesCount());
+		assertEquals(new HashSet<>(asList(context.forClass(ArrayList.class), context.forClass(Vector.class))), new HashSet<>(typeCategorization.findBoundedTypes(bounds)));
+		assertEquals(1, typeCategorization.getCachedBoundedTypesCount());
+	}
+	
+	@Test
+	public void testAsynchronousListeners() throws InterruptedException {
+		JCategory context = new JCategory();
+		TypeCategorization typeCategorization = context.getTypeCategorization();
+		List<Runnable> tasks = new ArrayList<>();
+		List<List<TypeCategory<?>>> batches = new ArrayList<>();
+		CategorizationListener<TypeCategory<?>> listener = new CategorizationListener<TypeCategory<?>>() {
+			@Override
+			public void onCategorization(TypeCategory<?> category) {
+				throw new AssertionError();
+			}
+			
+			@Override
+			public void onCategorizations(List<TypeCategory<?>> categories) {
+				batches.add(categories);
+			}
+		};
+		typeCategorization.addCategorizationListener(listener);
+		typeCategorization.getListenersManager().setAsynchronousDelivery(tasks::add, 100);
+		assertTrue(typeCategorization.getListenersManager().isAsynchronousDelivery());
+		context.forClass(ArrayList.class);
+		int categories = context.forTypeRoot().topDownCategories().size(); //the root, ArrayList and its supertypes
+		assertEquals(emptyList(), batches); //the thread creating the categories does not deliver the notifications
+		assertEquals(categories, typeCategorization.getListenersManager().getQueueDepth());
+		assertEquals(categories, typeCategorization.getListenersManager().getQueueDepth(listener));
+		assertEquals(1, tasks.size());
+		tasks.remove(0).run();
+		assertEquals(1, batches.size());
+		assertEquals(0, typeCategorization.getListenersManager().getQueueDepth());
+		List<TypeCategory<?>> batch = batches.get(0);
+		assertEquals(categories, batch.size());
+		for(TypeCategory<?> category : batch) { //categories are delivered in the order they were created
+			for(TypeCategory<?> parent : category.<TypeCategory<?>>getParents()) {
+				assertTrue(batch.indexOf(parent) < batch.indexOf(category));
+			}
+		}
+		assertEquals(emptyList(), tasks);
+		
+		typeCategorization.getListenersManager().setAsynchronousDelivery(tasks::add, 100);
+		context.forClass(LinkedList.class);
+		typeCategorization.getListenersManager().setSynchronousDelivery();
+		context.forClass(Vector.class); //queued behind the pending notifications, instead of overtaking them
+		assertEquals(1, batches.size());
+		assertEquals(1, tasks.size());
+		tasks.remove(0).run();
+		assertEquals(2, batches.size());
+		assertTrue(batches.get(1).contains(context.forClass(LinkedList.class)));
+		assertTrue(batches.get(1).contains(context.forClass(Vector.class)));
+		assertTrue(batches.get(1).indexOf(context.forClass(LinkedList.class)) < batches.get(1).indexOf(context.forClass(Vector.class)));
+		context.forClass(HashSet.class); //the queue was drained, so notifications are synchronous again
+		assertEquals(3, batches.size());
+		assertEquals(emptyList(), tasks);
+	}
+	
+	@Test
+	public void testBoundedAsynchronousListeners() throws InterruptedException {
+		JCategory context = new JCategory();
+		TypeCategorization typeCategorization = context.getTypeCategorization();
+		List<TypeCategory<?>> notified = new CopyOnWriteArrayList<>();
+		typeCategorization.addCategorizationListener(notified::add);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		typeCategorization.getListenersManager().setAsynchronousDelivery(executor, 2); //creation blocks while the queue is full
+		List<Class<?>> classes = asList(ArrayList.class, LinkedList.class, HashSet.class, TreeMap.class, Vector.class);
+		for(Class<?> clazz : classes) {
+			context.forClass(clazz);
+		}
+		int categories = context.forTypeRoot().topDownCategories().size();
+		for(int i = 0; i < 100 && notified.size() < categories; i++) {
+			Thread.sleep(10);
+		}
+		executor.shutdown();
+		assertEquals(categories, notified.size());
+		assertEquals(categories, new HashSet<>(notified).size());
+		for(Class<?> clazz : classes) {
+			assertTrue(notified.contains(context.forClass(clazz)));
+		}
+	}
+	
+	@Test
+	public void testListenerAddingCategories() throws InterruptedException {
+		JCategory context = new JCategory();
+		TypeCategorization typeCategorization = context.getTypeCategorization();
+		List<TypeCategory<?>> notified = new CopyOnWriteArrayList<>();
+		typeCategorization.addCategorizationListener(category -> {
+			notified.add(category);
+			if(category.getLabel().equals(ArrayList.class))
+				context.forClass(LinkedList.class); //does not wait for the full queue it is draining
+		});
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		typeCategorization.getListenersManager().setAsynchronousDelivery(executor, 1);
+		context.forClass(ArrayList.class);
+		TypeCategory<?> linkedListCategory = null;
+		int categories = 0;
+		for(int i = 0; i < 100 && (linkedListCategory == null || notified.size() != categories); i++) {
+			Thread.sleep(10);
+			linkedListCategory = typeCategorization.getTypeCategory(LinkedList.class); //created by the listener
+			categories = context.forTypeRoot().topDownCategories().size();
+		}
+		executor.shutdown();
+		assertEquals(categories, notified.size());
+		assertTrue(notified.contains(linkedListCategory));
+	}
+
+	@Test
+	public void testCallerRunsListenerAddingCategories() {
+		JCategory context = new JCategory();
+		TypeCategorization typeCategorization = context.getTypeCategorization();
+		List<TypeCategory<?>> notified = new ArrayList<>();
+		typeCategorization.addCategorizationListener(category -> {
+			notified.add(category);
+			if(category.getLabel().equals(ArrayList.class))
+				context.forClass(LinkedList.class);
+		});
+		typeCategorization.getListenersManager().setAsynchronousDelivery(Runnable::run, 1); //deliveries run in the thread creating the categories
+		context.forClass(ArrayList.class);
+		assertEquals(context.forTypeRoot().topDownCategories().size(), notified.size());
+		assertTrue(notified.contains(context.forClass(LinkedList.class)));
+	}
+
+	@Test
+	public void testRejectingListenerExecutor() {
+		JCategory context = new JCategory();
+		TypeCategorization typeCategorization = context.getTypeCategorization();
+		CounterCreationListener listener1 = new CounterCreationListener();
+		CounterCreationListener listener2 = new CounterCreationListener();
+		typeCategorization.addCategorizationListener((CategorizationListener)listener1);
+		typeCategorization.addCategorizationListener((CategorizationListener)listener2);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		executor.shutdown();
+		typeCategorization.getListenersManager().setAsynchronousDelivery(executor, 1);
+		context.forClass(ArrayList.class); //the rejected deliveries are made by the creating thread
+		int categories = context.forTypeRoot().topDownCategories().size();
+		assertEquals(categories, listener1.getCounter());
+		assertEquals(categories, listener2.getCounter());
+		assertEquals(0, typeCategorization.getListenersManager().getQueueDepth());
+	}
+
+	@Test
+	public void testRegisterAll() {
+		JCategory context = new JCategory();
+		TypeCategorization typeCategorization = context.getTypeCategorization();
+		List<List<TypeCategory<?>>> batches = new ArrayList<>();
+		typeCategorization.addCategorizationListener(new CategorizationListener<TypeCategory<?>>() {
+			@Override
+			public void onCategorization(TypeCategory<?> category) {
+				throw new AssertionError();
+			}
+			
+			@Override
+			public void onCategorizations(List<TypeCategory<?>> categories) {
+				batches.add(categories);
+			}
+		});
+		List<TypeCategory<?>> categories = typeCategorization.registerAll(Stream.of(ArrayList.class, int.class, LinkedList.class, HashSet.class, Integer.class, String[].class));
+		assertEquals(asList(ArrayList.class, LinkedList.class, HashSet.class, Integer.class, String[].class), categories.stream().map(TypeCategory::getLabel).collect(toList()));
+		assertEquals(1, batches.size()); //all the new categories are notified at once
+		List<TypeCategory<?>> batch = batches.get(0);
+		assertEquals(context.forTypeRoot().topDownCategories().size(), batch.size());
+		for(TypeCategory<?> category : batch) { //supertypes first
+			for(TypeCategory<?> parent : category.<TypeCategory<?>>getParents()) {
+				assertTrue(batch.indexOf(parent) < batch.indexOf(category));
+			}
+		}
+		assertSame(categories.get(0), context.forClass(ArrayList.class));
+		assertEquals(1, batches.size());
+	}
+	
+	@Test
+	public void testClassPathScanner() throws Exception {
+		Path root = Paths.get(TypeCategorizationTest.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+		ClassPathScanner directoryScanner = new ClassPathScanner(TypeCategorizationTest.class.getClassLoader(), asList(root));
+		List<Class<?>> classes = directoryScanner.scan("org.jcategory.category.type.").collect(toList());
+		assertTrue(classes.contains(TypeCategorizationTest.class));
+		assertTrue(classes.stream().allMatch(clazz -> clazz.getName().startsWith("org.jcategory.category.type.")));
+		
+		Path jar = Files.createTempFile("classes", ".jar");
+		try {
+			String classFile = TypeCategorizationTest.class.getName().replace('.', '/') + ".class";
+			try(JarOutputStream jarStream = new JarOutputStream(Files.newOutputStream(jar))) {
+				jarStream.putNextEntry(new JarEntry(classFile));
+				Files.copy(root.resolve(classFile), jarStream);
+				jarStream.closeEntry();
+			}
+			ClassPathScanner jarScanner = new ClassPathScanner(TypeCategorizationTest.class.getClassLoader(), asList(jar));
+			assertEquals(asList(TypeCategorizationTest.class.getName()), jarScanner.findClassNames(""));
+			JCategory context = new JCategory();
+			List<TypeCategory<?>> categories = context.getTypeCategorization().registerAll(jarScanner.scan(""));
+			assertEquals(asList(context.forClass(TypeCategorizationTest.class)), categories);
+		} finally {
+			Files.delete(jar);
+		}
+	}
+	
+	@Test
+	public void testBinarySnapshot() throws Exception {
+		Key key = key();
+		JCategory context = new JCategory();
+		context.forClass(ArrayList.class);
+		context.forClass(Collection.class).setProperty(key, 1L);
+		context.forTypeRoot().setProperty(key, 0L);
+		TypeSnapshotFormat format = new TypeSnapshotFormat();
+		format.addProperty("key", key, ValueCodecs.LONG);
+		Path file = Files.createTempFile("types", ".jcat");
+		try {
+			format.write(context.getTypeCategorization(), file);
+			JCategory restoredContext = new JCategory();
+			format.map(file).materializeAll(restoredContext.getTypeCategorization());
+			assertEquals(context.forTypeRoot().topDownCategories().size(), restoredContext.forTypeRoot().topDownCategories().size());
+			assertEquals(1L, restoredContext.forClass(ArrayList.class).getProperty(key).get());
+			assertEquals(0L, restoredContext.forClass(Object.class).getProperty(key).get());
+			assertEquals(0L, restoredContext.forTypeRoot().getLocalProperty(key).get(0));
+		} finally {
+			Files.delete(file);
+		}
+	}
+	
+	@Test
+	public void testWeakClassRetention() throws Exception {
+		JCategory context = new JCategory();
+		TypeCategorization typeCategorization = context.getTypeCategorization();
+		typeCategorization.setClassRetention(ClassRetention.WEAK);
+		typeCategorization.getOrCreateTypeCategory(Cat.class); //loaded by the system class loader
+		WeakReference<ClassLoader> classLoader = categorizeInNewClassLoader(typeCategorization, Cat.class.getName());
+		assertEquals(1, typeCategorization.getClassLoaderPartitionCount());
+		for(int i = 0; i < 50 && classLoader.get() != null; i++) {
+			System.gc();
+			Thread.sleep(20);
+		}
+		assertNull(classLoader.get());
+		long structureVersion = typeCategorization.getStructureVersion();
+		assertEquals(1, typeCategorization.purgeUnloadedClassLoaders());
+		assertEquals(0, typeCategorization.purgeUnloadedClassLoaders());
+		assertTrue(typeCategorization.getStructureVersion() > structureVersion);
+		assertEquals(0, typeCategorization.getClassLoaderPartitionCount());
+		TypeCategoryRoot root = typeCategorization.getRoot();
+		assertEquals(asList(Cat.class), root.topDownCategories().stream()
+				.map(category -> ((TypeCategory<?>) category).getLabel()).filter(label -> label.getName().equals(Cat.class.getName())).collect(toList()));
+		assertEquals(2, root.getRootInterfaceNodes().size()); //Furry and HasLegs loaded by the system class loader
+		assertEquals(1, root.getRootClassNode().getKnownSubClassNodes().size());
+	}
+	
+	private static WeakReference<ClassLoader> categorizeInNewClassLoader(TypeCategorization typeCategorization, String className) throws Exception {
+		URL classPath = TypeCategorizationTest.class.getProtectionDomain().getCodeSource().getLocation();
+		try(URLClassLoader classLoader = new URLClassLoader(new URL[] {classPath}, null)) {
+			Class<?> clazz = Class.forName(className, false, classLoader);
+			assertFalse(clazz.equals(Cat.class));
+			TypeCategory<?> category = typeCategorization.getOrCreateTypeCategory(clazz);
+			assertSame(category, typeCategorization.getTypeCategory(clazz));
+			TypeCategoryRoot root = typeCategorization.getRoot();
+			assertTrue(root.topDownCategories().contains(category));
+			assertEquals(4, root.getRootInterfaceNodes().size());
+			assertEquals(2, root.getRootClassNode().getKnownSubClassNodes().size());
+			assertEquals(2, typeCategorization.findBoundedTypes(asList(clazz.getSuperclass())).size()); //Animal and Cat
+			return new WeakReference<>(classLoader);
+		}
+	}
+	
 }
@@ -1,15 +1,23 @@
 package org.jcategory.strategy;
 
+import static java.util.Arrays.asList;
 import static org.jcategory.category.Key.key;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.fail;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.jcategory.ChainOfResponsibilityExhaustedException;
 import org.jcategory.JCategory;
 import org.jcategory.category.Key;
+import org.jcategory.category.PropertyResolutionCache;
 import org.junit.Test;
 
 public class StrategyTest {
@@ -66,6 +74,34 @@ public class StrategyTest {
 		}
 	}
 	
+	interface Measure {
+		public int size(Object object, int defaultSize);
+		public void check(Object object) throws Exception;
+	}
+	
+	class CollectionMeasure implements Measure {
+		@Override
+		public int size(Object object, int defaultSize) {
+			return ((Collection<?>) object).size();
+		}
+
+		@Override
+		public void check(Object object) throws Exception {
+			throw new Exception();
+		}
+	}
+	
+	class PartialDoSomething extends DoSomethingChild2 {
+		private final AtomicInteger delegations = new AtomicInteger();
+		
+		@Delegates
+		@Override
+		public String doIt2() {
+			delegations.incrementAndGet();
+			throw NoMyResponsibilityException.delegate();
+		}
+	}
+	
 	private JCategory context() {
 		JCategory context = new JCategory();
 		Key key = key(DoSomething.class);
@@ -117,4 +153,99 @@ public class StrategyTest {
 		} catch(ChainOfResponsibilityExhaustedException e) {}
 	}
 
+	@Test
+	public void testCachedStrategy() {
+		JCategory context = context();
+		DoSomething doSomething = context.forClass(ArrayList.class).getStrategy(DoSomething.class);
+		assertSame(doSomething, context.forClass(ArrayList.class).getStrategy(DoSomething.class));
+		assertNotSame(doSomething, context.forClass(ArrayList.class).getStrategy(DoSomething.class, IllegalStateException.class));
+		
+		context.forClass(List.class).setProperty(key(DoSomething.class), new DoSomethingChild1()); //List is an ancestor of ArrayList
+		DoSomething newDoSomething = context.forClass(ArrayList.class).getStrategy(DoSomething.class);
+		assertNotSame(doSomething, newDoSomething);
+		assertSame(newDoSomething, context.forClass(ArrayList.class).getStrategy(DoSomething.class));
+		assertEquals("DoSomethingChild2.doIt1()", newDoSomething.doIt1());
+	}
+
+	@Test
+	public void testResolvedResponsibilityChain() {
+		JCategory context = context();
+		PropertyResolutionCache resolutionCache = context.getTypeCategorization().getResolutionCache();
+		DoSomething doSomething = context.forClass(ArrayList.class).getStrategy(DoSomething.class);
+		assertEquals("DoSomethingChild1.doIt2()", doSomething.doIt2());
+		long misses = resolutionCache.getMissCount();
+		assertEquals("DoSomethingChild1.doIt2()", doSomething.doIt2());
+		assertEquals("DoSomethingChild2.doIt1()", doSomething.doIt1());
+		assertEquals(misses, resolutionCache.getMissCount()); //the chain was resolved only once
+		
+		context.forClass(ArrayList.class).removeLocalProperty(key(DoSomething.class));
+		assertEquals("DoSomethingChild1.doIt1()", doSomething.doIt1()); //the chain is resolved again
+		assertEquals(misses + 1, resolutionCache.getMissCount());
+	}
+
+	@Test
+	public void testPrimitiveArgumentsAndCheckedExceptions() {
+		JCategory context = context();
+		context.forClass(Collection.class).setProperty(key(Measure.class), new CollectionMeasure());
+		Measure measure = context.forClass(ArrayList.class).getStrategy(Measure.class);
+		assertEquals(0, measure.size(new ArrayList<>(), -1));
+		try {
+			measure.check(new ArrayList<>());
+			fail();
+		} catch(Exception e) {
+			assertEquals(RuntimeException.class, e.getClass()); //checked exceptions are wrapped as in a reflective invocation
+			assertEquals(Exception.class, e.getCause().getClass());
+		}
+	}
+
+	@Test
+	public void testSharedDelegationSignal() {
+		JCategory context = context();
+		context.forClass(List.class).setProperty(key(DoSomething.class), new DoSomethingChild1() {
+			@Override
+			public String doIt2() {
+				throw NoMyResponsibilityException.delegate();
+			}
+		});
+		DoSomething doSomething = context.forClass(ArrayList.class).getStrategy(DoSomething.class);
+		assertEquals("DoSomethingChild1.doIt2()", doSomething.doIt2()); //answered by the strategy in Collection
+		assertSame(NoMyResponsibilityException.delegate(), NoMyResponsibilityException.delegate());
+		assertEquals(0, new NoMyResponsibilityException().getStackTrace().length);
+	}
+	
+	@Test
+	public void testOptionalDelegation() {
+		ChainOfResponsibility<Integer, String> chain = new ChainOfResponsibility<>(new ArrayList<>(asList(1, 2, 3, 4)));
+		assertEquals(Optional.of("3"), chain.applyOptional(i -> i % 3 == 0 ? Optional.of(i.toString()) : Optional.empty()));
+		assertEquals(Optional.of("2"), chain.applyOptional(i -> {
+			if(i == 1)
+				throw NoMyResponsibilityException.delegate();
+			return Optional.of(i.toString());
+		}));
+		assertFalse(chain.applyOptional(i -> Optional.empty()).isPresent());
+	}
+
+	@Test
+	public void testSkippedImplementors() {
+		JCategory context = context();
+		PartialDoSomething partialDoSomething = new PartialDoSomething();
+		context.forClass(List.class).setProperty(key(DoSomething.class), partialDoSomething);
+		context.forClass(ArrayList.class).removeLocalProperty(key(DoSomething.class));
+		DoSomething doSomething = context.forClass(ArrayList.class).getStrategy(DoSomething.class);
+		assertEquals("DoSomethingChild1.doIt2()", doSomething.doIt2());
+		assertEquals("DoSomethingChild2.doIt1()", doSomething.doIt1()); //not annotated
+		assertEquals(0, partialDoSomething.delegations.get());
+		
+		context.forClass(Collection.class).setProperty(key(DoSomething.class), new DoSomethingChild2());
+		try {
+			doSomething.doIt2(); //the chain was resolved again
+			fail();
+		} catch(ChainOfResponsibilityExhaustedException e) {}
+		assertEquals(0, partialDoSomething.delegations.get());
+		
+		ChainOfResponsibility<DoSomething, String> chain = new ChainOfResponsibility<>(asList(partialDoSomething, new DoSomethingChild1()));
+		assertEquals("DoSomethingChild1.doIt2()", chain.apply(DoSomething::doIt2)); //annotations are only considered by strategy objects
+		assertEquals(1, partialDoSomething.delegations.get());
+	}
+
 }